@@ -0,0 +1,22 @@
+package com.sise.orbitsongv1;
+
+import android.app.Application;
+
+import com.sise.orbitsongv1.repositories.SongRepository;
+import com.sise.orbitsongv1.services.AuthTokenHolder;
+import com.sise.orbitsongv1.services.PreviewAudioCache;
+import com.sise.orbitsongv1.services.RetrofitClient;
+
+public class OrbitSongApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // Servicios compartidos que necesitan contexto de aplicación
+        AuthTokenHolder.getInstance().initialize(this);
+        RetrofitClient.initialize(this);
+        SongRepository.getInstance().initialize(this);
+        PreviewAudioCache.getInstance().initialize(this);
+    }
+}
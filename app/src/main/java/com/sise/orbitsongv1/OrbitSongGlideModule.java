@@ -0,0 +1,130 @@
+package com.sise.orbitsongv1;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+import com.sise.orbitsongv1.utils.Constants;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Configuración de Glide para la app.
+ *
+ * - Caché en memoria y bitmap pool dimensionados según la memoria de la app
+ *   (getMemoryClass), más pequeños en dispositivos de poca RAM.
+ * - RGB_565 por defecto: las carátulas de la lista no tienen transparencia y ocupan la
+ *   mitad. El reproductor pide ARGB_8888 para la carátula grande.
+ * - Contadores de aciertos/fallos de la caché en memoria (ver {@link #getStatsSummary()}).
+ */
+@GlideModule
+public final class OrbitSongGlideModule extends AppGlideModule {
+    private static final String TAG = "OrbitSongGlide";
+
+    private static volatile StatsMemoryCache memoryCache;
+    private static volatile LruBitmapPool bitmapPool;
+    private static volatile long diskCacheSizeBytes;
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        boolean lowRam = activityManager != null && activityManager.isLowRamDevice();
+        int memoryClassMb = activityManager != null ? activityManager.getMemoryClass() : 64;
+        long heapBytes = memoryClassMb * 1024L * 1024L;
+
+        // 1/8 del heap para recursos decodificados y 1/10 para bitmaps reutilizables (la mitad con poca RAM)
+        long memoryCacheBytes = heapBytes / (lowRam ? 16 : 8);
+        long bitmapPoolBytes = heapBytes / (lowRam ? 20 : 10);
+        diskCacheSizeBytes = lowRam ? Constants.GLIDE_DISK_CACHE_LOW_RAM_BYTES : Constants.GLIDE_DISK_CACHE_BYTES;
+
+        memoryCache = new StatsMemoryCache(memoryCacheBytes);
+        bitmapPool = new LruBitmapPool(bitmapPoolBytes);
+
+        builder.setMemoryCache(memoryCache);
+        builder.setBitmapPool(bitmapPool);
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, Constants.GLIDE_DISK_CACHE_DIR, diskCacheSizeBytes));
+        builder.setDefaultRequestOptions(new RequestOptions().format(DecodeFormat.PREFER_RGB_565));
+        builder.setLogLevel(Log.ERROR);
+
+        Log.d(TAG, String.format(Locale.US, "🖼️ Glide: memoryClass=%dMB lowRam=%b memoria=%dKB pool=%dKB disco=%dMB",
+                memoryClassMb, lowRam, memoryCacheBytes / 1024, bitmapPoolBytes / 1024,
+                diskCacheSizeBytes / (1024 * 1024)));
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+
+    // ========================================
+    // ESTADÍSTICAS
+    // ========================================
+
+    public static String getStatsSummary() {
+        StatsMemoryCache cache = memoryCache;
+        LruBitmapPool pool = bitmapPool;
+        if (cache == null || pool == null) {
+            return "🖼️ Glide todavía no inicializado";
+        }
+
+        long hits = cache.hits.get();
+        long misses = cache.misses.get();
+        long lookups = hits + misses;
+        return String.format(Locale.US,
+                "🖼️ Glide: memoria %dKB/%dKB, hits=%d, misses=%d (%.0f%%), evictions=%d, pool=%dKB, disco=%dMB",
+                cache.getCurrentSize() / 1024,
+                cache.getMaxSize() / 1024,
+                hits,
+                misses,
+                lookups > 0 ? hits * 100.0 / lookups : 0.0,
+                cache.evictions.get(),
+                pool.getMaxSize() / 1024,
+                diskCacheSizeBytes / (1024 * 1024));
+    }
+
+    /**
+     * LruResourceCache que cuenta aciertos y expulsiones. Glide llama a remove() al buscar
+     * un recurso en memoria: devolver algo es un acierto.
+     */
+    private static final class StatsMemoryCache extends LruResourceCache {
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong evictions = new AtomicLong();
+
+        StatsMemoryCache(long size) {
+            super(size);
+        }
+
+        @Nullable
+        @Override
+        public synchronized Resource<?> remove(@NonNull Key key) {
+            Resource<?> resource = super.remove(key);
+            if (resource != null) {
+                hits.incrementAndGet();
+            } else {
+                misses.incrementAndGet();
+            }
+            return resource;
+        }
+
+        @Override
+        protected void onItemEvicted(@NonNull Key key, @Nullable Resource<?> item) {
+            evictions.incrementAndGet();
+            super.onItemEvicted(key, item);
+        }
+    }
+}
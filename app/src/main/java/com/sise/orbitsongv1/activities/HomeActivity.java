@@ -18,6 +18,7 @@ import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.SearchView;
+import androidx.lifecycle.Lifecycle;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
@@ -27,11 +28,17 @@ import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.snackbar.Snackbar;
 import com.sise.orbitsongv1.R;
 import com.sise.orbitsongv1.adapters.SongAdapter;
+import com.sise.orbitsongv1.models.LibraryStats;
 import com.sise.orbitsongv1.models.Song;
 import com.sise.orbitsongv1.models.SpotifySearchResponse;
+import com.sise.orbitsongv1.repositories.SongRepository;
+import com.sise.orbitsongv1.repositories.SongStore;
+import com.sise.orbitsongv1.services.AuthTokenHolder;
 import com.sise.orbitsongv1.services.MusicPlayerService;
 import com.sise.orbitsongv1.services.RetrofitClient;
+import com.sise.orbitsongv1.utils.ComputationRunner;
 import com.sise.orbitsongv1.utils.Constants;
+import com.sise.orbitsongv1.utils.SearchCallTracker;
 
 import java.util.List;
 
@@ -67,15 +74,25 @@ public class HomeActivity extends AppCompatActivity
 
     // Variables de lógica
     private SongAdapter songAdapter;
-    private String authToken;
     private boolean isLoading = false;
+    private boolean showingCachedCatalog = false;
+    // ✅ NUEVO: Proyección del SongStore que se está mostrando (se compara por identidad)
+    private List<Song> displayedCatalog;
+    private final SongStore.Observer catalogObserver = catalogKey -> onCatalogChanged();
     private MusicPlayerService musicPlayer;
-    private Handler progressHandler;
-    private Runnable progressRunnable;
 
     // Variables para búsqueda en tiempo real
     private Handler searchHandler;
     private Runnable searchRunnable;
+    private final SearchCallTracker searchCalls = new SearchCallTracker();
+    // ✅ NUEVO: Carga del catálogo en curso (se cancela al salir o al recargar)
+    private Call<?> catalogCall;
+
+    // ✅ NUEVO: Estadísticas calculadas fuera del hilo principal
+    private final ComputationRunner computations = new ComputationRunner();
+    private static final String JOB_QUICK_STATS = "quickStats";
+    private static final String JOB_LIBRARY_STATS = "libraryStats";
+    private static final String JOB_DETAILED_STATS = "detailedStats";
     private String currentSearchQuery = "";
 
     // Estados de la app
@@ -91,12 +108,13 @@ public class HomeActivity extends AppCompatActivity
         initViews();
         setupRecyclerView();
         setupWelcomeMessage();
-        getAuthToken();
+        checkAuthToken();
         setupListeners();
         setupMusicPlayerEnhanced();
         setupSearchHandler();
 
         // Cargar canciones al iniciar
+        SongRepository.getInstance().getStore().addObserver(catalogObserver);
         loadSongsFromDatabaseEnhanced();
     }
 
@@ -133,6 +151,7 @@ public class HomeActivity extends AppCompatActivity
         songAdapter.setOnSongClickListener(this);
         recyclerViewSongs.setLayoutManager(new LinearLayoutManager(this));
         recyclerViewSongs.setAdapter(songAdapter);
+        songAdapter.attachImagePreloader(recyclerViewSongs);
     }
 
     private void setupWelcomeMessage() {
@@ -155,17 +174,19 @@ public class HomeActivity extends AppCompatActivity
         editor.clear();
         editor.apply();
 
+        // El catálogo guardado pertenece a la sesión que se cierra
+        SongRepository.getInstance().clearCache();
+        AuthTokenHolder.getInstance().clear();
+
         Intent intent = new Intent(HomeActivity.this, LoginActivity.class);
         intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
         startActivity(intent);
         finish();
     }
 
-    private void getAuthToken() {
-        SharedPreferences prefs = getSharedPreferences(Constants.PREFS_NAME, MODE_PRIVATE);
-        String token = prefs.getString(Constants.TOKEN_KEY, null);
-        if (token != null) {
-            authToken = "Bearer " + token;
+    private void checkAuthToken() {
+        // La cabecera Authorization la añade RetrofitClient desde AuthTokenHolder
+        if (AuthTokenHolder.getInstance().hasToken()) {
             Log.d(TAG, "✅ Token obtenido correctamente");
         } else {
             Log.e(TAG, "❌ No se encontró token, redirigiendo a login");
@@ -198,7 +219,7 @@ public class HomeActivity extends AppCompatActivity
     private void setupListeners() {
         swipeRefreshLayout.setOnRefreshListener(() -> {
             if (currentSearchQuery.isEmpty()) {
-                loadSongsFromDatabaseEnhanced();
+                loadSongsFromDatabaseEnhanced(true);
             } else {
                 searchInDatabase(currentSearchQuery);
             }
@@ -212,7 +233,7 @@ public class HomeActivity extends AppCompatActivity
         // ✅ CORREGIDO: Listener para botón de actualizar (con manejo de errores)
         try {
             findViewById(R.id.btn_refresh_music).setOnClickListener(v -> {
-                loadSongsFromDatabaseEnhanced();
+                loadSongsFromDatabaseEnhanced(true);
                 showToast("🔄 Actualizando biblioteca...");
             });
         } catch (Exception e) {
@@ -282,20 +303,7 @@ public class HomeActivity extends AppCompatActivity
     private void setupMusicPlayerEnhanced() {
         musicPlayer = MusicPlayerService.getInstance();
         musicPlayer.initialize(this);
-        musicPlayer.setListener(this);
-
-        progressHandler = new Handler(Looper.getMainLooper());
-        progressRunnable = new Runnable() {
-            @Override
-            public void run() {
-                if (musicPlayer.isPlaying()) {
-                    int currentPosition = musicPlayer.getCurrentPosition();
-                    int duration = musicPlayer.getDuration();
-                    onProgressUpdate(currentPosition, duration);
-                    progressHandler.postDelayed(this, 1000);
-                }
-            }
-        };
+        musicPlayer.addListener(this);
 
         Log.d(TAG, "✅ MusicPlayerService configurado con mini reproductor");
     }
@@ -411,25 +419,26 @@ public class HomeActivity extends AppCompatActivity
         if (layoutQuickStats == null || tvTotalSongs == null || tvWithPreview == null) return;
 
         if (songs == null || songs.isEmpty()) {
+            // Un cálculo pendiente de la lista anterior volvería a mostrar el panel
+            computations.cancel(JOB_QUICK_STATS);
             layoutQuickStats.setVisibility(View.GONE);
             return;
         }
 
-        int totalSongs = songs.size();
-        long songsWithPreview = songs.stream().filter(Song::hasPreview).count();
-
-        tvTotalSongs.setText(String.format("🎵 %d canciones", totalSongs));
-        tvWithPreview.setText(String.format("🎧 %d reproducibles", songsWithPreview));
-
-        // Mostrar con animación
-        if (layoutQuickStats.getVisibility() != View.VISIBLE) {
-            layoutQuickStats.setVisibility(View.VISIBLE);
-            layoutQuickStats.setAlpha(0f);
-            layoutQuickStats.animate()
-                    .alpha(1f)
-                    .setDuration(500)
-                    .start();
-        }
+        computations.run(JOB_QUICK_STATS, () -> LibraryStats.compute(songs), stats -> {
+            tvTotalSongs.setText(String.format("🎵 %d canciones", stats.getTotalSongs()));
+            tvWithPreview.setText(String.format("🎧 %d reproducibles", stats.getSongsWithPreview()));
+
+            // Mostrar con animación
+            if (layoutQuickStats.getVisibility() != View.VISIBLE) {
+                layoutQuickStats.setVisibility(View.VISIBLE);
+                layoutQuickStats.setAlpha(0f);
+                layoutQuickStats.animate()
+                        .alpha(1f)
+                        .setDuration(500)
+                        .start();
+            }
+        });
     }
 
     // ========================================
@@ -437,6 +446,17 @@ public class HomeActivity extends AppCompatActivity
     // ========================================
 
     private void loadSongsFromDatabaseEnhanced() {
+        loadSongsFromDatabaseEnhanced(false);
+    }
+
+    /**
+     * @param forceRefresh false para reutilizar el catálogo si otra pantalla lo cargó hace poco
+     */
+    private void loadSongsFromDatabaseEnhanced(boolean forceRefresh) {
+        // Volver al catálogo deja sin sentido cualquier búsqueda en curso
+        if (searchCalls.cancel()) {
+            isLoading = false;
+        }
         if (isLoading) return;
 
         showLoadingWithAnimation(true);
@@ -444,41 +464,91 @@ public class HomeActivity extends AppCompatActivity
         currentSearchQuery = "";
 
         Log.d(TAG, "📋 Cargando canciones desde la base de datos...");
+        showingCachedCatalog = false;
 
-        RetrofitClient.getInstance().getApiService().getSongsWithPreview(authToken)
-                .enqueue(new Callback<List<Song>>() {
-                    @Override
-                    public void onResponse(Call<List<Song>> call, Response<List<Song>> response) {
-                        showLoadingWithAnimation(false);
-                        swipeRefreshLayout.setRefreshing(false);
+        // ✅ NUEVO: Primero se dibuja el catálogo guardado en disco y luego se refresca desde la red
+        if (catalogCall != null) {
+            catalogCall.cancel();
+        }
+        catalogCall = SongRepository.getInstance().loadSongsWithPreview(forceRefresh, new SongRepository.CatalogCallback() {
+            @Override
+            public void onCatalogLoaded(List<Song> songs, boolean fromCache) {
+                displayedCatalog = songs;
+                if (fromCache) {
+                    Log.d(TAG, "⚡ Mostrando catálogo guardado mientras se actualiza: " + songs.size());
+                    showingCachedCatalog = true;
+                    updateAppState(AppState.LOADED_WITH_DATA, songs);
+                    swipeRefreshLayout.setRefreshing(true);
+                    return;
+                }
 
-                        if (response.isSuccessful() && response.body() != null) {
-                            List<Song> songs = response.body();
-                            Log.d(TAG, "✅ Canciones cargadas desde BD: " + songs.size());
+                showLoadingWithAnimation(false);
+                swipeRefreshLayout.setRefreshing(false);
+                Log.d(TAG, "✅ Canciones cargadas desde BD: " + songs.size());
 
-                            if (songs.isEmpty()) {
-                                updateAppState(AppState.LOADED_EMPTY, null);
-                                showSnackbarWithAction();
-                            } else {
-                                updateAppState(AppState.LOADED_WITH_DATA, songs);
-                                showSuccess("📋 " + songs.size() + " canciones cargadas desde tu biblioteca");
-                                showLibraryStats(songs);
-                            }
-                        } else {
-                            Log.e(TAG, "❌ Error al cargar canciones de la BD. Código: " + response.code());
-                            handleApiError(response.code());
-                        }
-                    }
+                if (songs.isEmpty()) {
+                    updateAppState(AppState.LOADED_EMPTY, null);
+                    showSnackbarWithAction();
+                } else {
+                    updateAppState(AppState.LOADED_WITH_DATA, songs);
+                    showSuccess("📋 " + songs.size() + " canciones cargadas desde tu biblioteca");
+                    showLibraryStats(songs);
+                }
+            }
 
-                    @Override
-                    public void onFailure(Call<List<Song>> call, Throwable t) {
-                        showLoadingWithAnimation(false);
-                        swipeRefreshLayout.setRefreshing(false);
-                        Log.e(TAG, "❌ Error de conexión al cargar canciones de BD", t);
-                        showError("Error de conexión: " + t.getMessage());
-                        updateAppState(AppState.ERROR, null);
-                    }
-                });
+            @Override
+            public void onCatalogChunk(List<Song> newSongs, boolean firstChunk) {
+                // ⚡ Primeras canciones en pantalla mientras el resto sigue llegando
+                progressBar.setVisibility(View.GONE);
+                swipeRefreshLayout.setRefreshing(true);
+                showEmptyState(false);
+                if (firstChunk) {
+                    songAdapter.setSongs(newSongs);
+                } else {
+                    songAdapter.addSongs(newSongs);
+                }
+            }
+
+            @Override
+            public void onCatalogError(int httpCode) {
+                showLoadingWithAnimation(false);
+                swipeRefreshLayout.setRefreshing(false);
+                Log.e(TAG, "❌ Error al cargar canciones de la BD. Código: " + httpCode);
+                if (showingCachedCatalog && httpCode != 401) {
+                    showError("No se pudo actualizar la biblioteca (Código: " + httpCode + ")");
+                } else {
+                    handleApiError(httpCode);
+                }
+            }
+
+            @Override
+            public void onCatalogFailure(Throwable t) {
+                showLoadingWithAnimation(false);
+                swipeRefreshLayout.setRefreshing(false);
+                Log.e(TAG, "❌ Error de conexión al cargar canciones de BD", t);
+                showError("Error de conexión: " + t.getMessage());
+                if (!showingCachedCatalog) {
+                    updateAppState(AppState.ERROR, null);
+                }
+            }
+        });
+    }
+
+    /**
+     * ✅ NUEVO: Otra pantalla actualizó el almacén (p. ej. la biblioteca trajo "todas").
+     * Solo se redibuja si se está mostrando el catálogo y su proyección cambió.
+     */
+    private void onCatalogChanged() {
+        if (isLoading || !currentSearchQuery.isEmpty() || displayedCatalog == null) return;
+
+        List<Song> latest = SongRepository.getInstance().getStore()
+                .getCatalog(SongRepository.CATALOG_WITH_PREVIEW);
+        if (latest == null || latest == displayedCatalog || latest.isEmpty()) return;
+
+        Log.d(TAG, "🔄 Catálogo actualizado desde otra pantalla: " + latest.size());
+        displayedCatalog = latest;
+        songAdapter.setSongs(latest);
+        updateQuickStats(latest);
     }
 
     private void searchInDatabase(String query) {
@@ -487,7 +557,8 @@ public class HomeActivity extends AppCompatActivity
             return;
         }
 
-        if (isLoading) return;
+        // ✅ NUEVO: Una búsqueda nueva sustituye (y cancela) a la anterior en vez de ignorarse
+        if (isLoading && !searchCalls.isSearching()) return;
 
         showLoadingWithAnimation(true);
         showEmptyState(false);
@@ -495,46 +566,50 @@ public class HomeActivity extends AppCompatActivity
 
         Log.d(TAG, "🔍 Buscando en la base de datos: " + query);
 
-        RetrofitClient.getInstance().getApiService().searchSongsByNameWithPreview(authToken, query)
-                .enqueue(new Callback<List<Song>>() {
-                    @Override
-                    public void onResponse(Call<List<Song>> call, Response<List<Song>> response) {
-                        showLoadingWithAnimation(false);
+        Call<List<Song>> searchCall = RetrofitClient.getInstance().getApiService().searchSongsByNameWithPreview(query);
+        long generation = searchCalls.begin(searchCall);
+        searchCall.enqueue(new Callback<List<Song>>() {
+            @Override
+            public void onResponse(Call<List<Song>> call, Response<List<Song>> response) {
+                if (!searchCalls.finish(generation)) return;
+                showLoadingWithAnimation(false);
 
-                        if (response.isSuccessful() && response.body() != null) {
-                            List<Song> songs = response.body();
-                            Log.d(TAG, "✅ Resultados de búsqueda en BD: " + songs.size());
-
-                            if (songs.isEmpty()) {
-                                showEmptyStateWithMessage(
-                                        "😕 No se encontraron canciones en tu biblioteca para:\n" +
-                                                "\"" + query + "\"\n\n" +
-                                                "💡 Opciones:\n" +
-                                                "• Busca en Spotify usando el menú de búsqueda\n" +
-                                                "• Carga más música usando el botón ➕\n" +
-                                                "• Intenta con otros términos"
-                                );
-                                showSnackbarSearchSpotify(query);
-                            } else {
-                                songAdapter.setSongs(songs);
-                                showEmptyState(false);
-                                updateQuickStats(songs);
-                                showSuccess("📋 " + songs.size() + " resultado(s) encontrado(s) para: \"" + query + "\"");
-                            }
-                        } else {
-                            Log.e(TAG, "❌ Error en búsqueda de BD. Código: " + response.code());
-                            handleApiError(response.code());
-                        }
+                if (response.isSuccessful() && response.body() != null) {
+                    // ✅ NUEVO: Mismas instancias que el catálogo para las canciones ya conocidas
+                    List<Song> songs = SongRepository.getInstance().internSearchResults(response.body());
+                    Log.d(TAG, "✅ Resultados de búsqueda en BD: " + songs.size());
+
+                    if (songs.isEmpty()) {
+                        showEmptyStateWithMessage(
+                                "😕 No se encontraron canciones en tu biblioteca para:\n" +
+                                        "\"" + query + "\"\n\n" +
+                                        "💡 Opciones:\n" +
+                                        "• Busca en Spotify usando el menú de búsqueda\n" +
+                                        "• Carga más música usando el botón ➕\n" +
+                                        "• Intenta con otros términos"
+                        );
+                        showSnackbarSearchSpotify(query);
+                    } else {
+                        songAdapter.setSongs(songs);
+                        showEmptyState(false);
+                        updateQuickStats(songs);
+                        showSuccess("📋 " + songs.size() + " resultado(s) encontrado(s) para: \"" + query + "\"");
                     }
+                } else {
+                    Log.e(TAG, "❌ Error en búsqueda de BD. Código: " + response.code());
+                    handleApiError(response.code());
+                }
+            }
 
-                    @Override
-                    public void onFailure(Call<List<Song>> call, Throwable t) {
-                        showLoadingWithAnimation(false);
-                        Log.e(TAG, "❌ Error de conexión en búsqueda de BD", t);
-                        showError("Error de conexión en búsqueda: " + t.getMessage());
-                        showEmptyStateWithMessage("❌ Error de conexión\n\nRevisa tu internet e intenta de nuevo");
-                    }
-                });
+            @Override
+            public void onFailure(Call<List<Song>> call, Throwable t) {
+                if (!searchCalls.finish(generation)) return;
+                showLoadingWithAnimation(false);
+                Log.e(TAG, "❌ Error de conexión en búsqueda de BD", t);
+                showError("Error de conexión en búsqueda: " + t.getMessage());
+                showEmptyStateWithMessage("❌ Error de conexión\n\nRevisa tu internet e intenta de nuevo");
+            }
+        });
     }
 
     private void loadAllSpotifyMusic() {
@@ -546,7 +621,7 @@ public class HomeActivity extends AppCompatActivity
         Log.d(TAG, "📥 Cargando y guardando música desde Spotify...");
         showToast("📥 Descargando música popular desde Spotify...");
 
-        RetrofitClient.getInstance().getApiService().loadAllSongs(authToken)
+        RetrofitClient.getInstance().getApiService().loadAllSongs()
                 .enqueue(new Callback<SpotifySearchResponse>() {
                     @Override
                     public void onResponse(Call<SpotifySearchResponse> call, Response<SpotifySearchResponse> response) {
@@ -560,7 +635,8 @@ public class HomeActivity extends AppCompatActivity
                                 Log.d(TAG, "✅ Música guardada desde Spotify: " + songs.size());
 
                                 showSuccess("✅ " + songs.size() + " canciones cargadas y guardadas desde Spotify!");
-                                loadSongsFromDatabaseEnhanced();
+                                // El catálogo del backend cambió: lo de memoria ya no vale
+                                loadSongsFromDatabaseEnhanced(true);
                             } else {
                                 showError(spotifyResponse.getMessage() != null ?
                                         spotifyResponse.getMessage() : "No se pudieron cargar canciones desde Spotify");
@@ -587,7 +663,12 @@ public class HomeActivity extends AppCompatActivity
             return;
         }
 
-        if (isLoading) return;
+        if (isLoading && !searchCalls.isSearching()) return;
+
+        // La búsqueda en BD pendiente de debounce ya no aplica
+        if (searchRunnable != null) {
+            searchHandler.removeCallbacks(searchRunnable);
+        }
 
         showLoadingWithAnimation(true);
         showEmptyState(false);
@@ -596,48 +677,51 @@ public class HomeActivity extends AppCompatActivity
         Log.d(TAG, "🔍 Buscando en tiempo real en Spotify: " + query);
         showToast("🔍 Buscando en Spotify: " + query);
 
-        RetrofitClient.getInstance().getApiService().searchSpotifyRealTimeWithPreview(authToken, query)
-                .enqueue(new Callback<SpotifySearchResponse>() {
-                    @Override
-                    public void onResponse(Call<SpotifySearchResponse> call, Response<SpotifySearchResponse> response) {
-                        showLoadingWithAnimation(false);
+        Call<SpotifySearchResponse> searchCall = RetrofitClient.getInstance().getApiService().searchSpotifyRealTimeWithPreview(query);
+        long generation = searchCalls.begin(searchCall);
+        searchCall.enqueue(new Callback<SpotifySearchResponse>() {
+            @Override
+            public void onResponse(Call<SpotifySearchResponse> call, Response<SpotifySearchResponse> response) {
+                if (!searchCalls.finish(generation)) return;
+                showLoadingWithAnimation(false);
 
-                        if (response.isSuccessful() && response.body() != null) {
-                            SpotifySearchResponse spotifyResponse = response.body();
+                if (response.isSuccessful() && response.body() != null) {
+                    SpotifySearchResponse spotifyResponse = response.body();
 
-                            if (spotifyResponse.isSuccessWithResults()) {
-                                List<Song> songs = spotifyResponse.getCanciones();
-                                Log.d(TAG, "✅ Resultados de Spotify: " + songs.size());
+                    if (spotifyResponse.isSuccessWithResults()) {
+                        List<Song> songs = spotifyResponse.getCanciones();
+                        Log.d(TAG, "✅ Resultados de Spotify: " + songs.size());
 
-                                songAdapter.setSongs(songs);
-                                showEmptyState(false);
-                                updateQuickStats(songs);
-                                showSuccess("🎵 " + songs.size() + " canciones encontradas en Spotify para: \"" + query + "\"");
-                            } else {
-                                showEmptyStateWithMessage(
-                                        "😕 No se encontraron canciones en Spotify para:\n" +
-                                                "\"" + query + "\"\n\n" +
-                                                "💡 Intenta con:\n" +
-                                                "• 'Bad Bunny'\n" +
-                                                "• 'Taylor Swift'\n" +
-                                                "• 'The Weeknd'\n" +
-                                                "• Nombres de canciones específicas"
-                                );
-                            }
-                        } else {
-                            Log.e(TAG, "❌ Error en búsqueda de Spotify. Código: " + response.code());
-                            handleApiError(response.code());
-                        }
+                        songAdapter.setSongs(songs);
+                        showEmptyState(false);
+                        updateQuickStats(songs);
+                        showSuccess("🎵 " + songs.size() + " canciones encontradas en Spotify para: \"" + query + "\"");
+                    } else {
+                        showEmptyStateWithMessage(
+                                "😕 No se encontraron canciones en Spotify para:\n" +
+                                        "\"" + query + "\"\n\n" +
+                                        "💡 Intenta con:\n" +
+                                        "• 'Bad Bunny'\n" +
+                                        "• 'Taylor Swift'\n" +
+                                        "• 'The Weeknd'\n" +
+                                        "• Nombres de canciones específicas"
+                        );
                     }
+                } else {
+                    Log.e(TAG, "❌ Error en búsqueda de Spotify. Código: " + response.code());
+                    handleApiError(response.code());
+                }
+            }
 
-                    @Override
-                    public void onFailure(Call<SpotifySearchResponse> call, Throwable t) {
-                        showLoadingWithAnimation(false);
-                        Log.e(TAG, "❌ Error de conexión en búsqueda de Spotify", t);
-                        showError("Error de conexión en búsqueda de Spotify: " + t.getMessage());
-                        showEmptyStateWithMessage("❌ Error de conexión con Spotify\n\nRevisa tu internet e intenta de nuevo");
-                    }
-                });
+            @Override
+            public void onFailure(Call<SpotifySearchResponse> call, Throwable t) {
+                if (!searchCalls.finish(generation)) return;
+                showLoadingWithAnimation(false);
+                Log.e(TAG, "❌ Error de conexión en búsqueda de Spotify", t);
+                showError("Error de conexión en búsqueda de Spotify: " + t.getMessage());
+                showEmptyStateWithMessage("❌ Error de conexión con Spotify\n\nRevisa tu internet e intenta de nuevo");
+            }
+        });
     }
 
     private void loadSpotifyRecommendations() {
@@ -650,7 +734,7 @@ public class HomeActivity extends AppCompatActivity
         Log.d(TAG, "🎵 Cargando recomendaciones desde Spotify...");
         showToast("🎯 Cargando recomendaciones desde Spotify...");
 
-        RetrofitClient.getInstance().getApiService().getSpotifyRecommendations(authToken)
+        RetrofitClient.getInstance().getApiService().getSpotifyRecommendations()
                 .enqueue(new Callback<SpotifySearchResponse>() {
                     @Override
                     public void onResponse(Call<SpotifySearchResponse> call, Response<SpotifySearchResponse> response) {
@@ -845,55 +929,36 @@ public class HomeActivity extends AppCompatActivity
     private void showLibraryStats(List<Song> songs) {
         if (songs == null || songs.isEmpty()) return;
 
-        long songsWithPreview = songs.stream().filter(Song::hasPreview).count();
-        long totalDuration = songs.stream()
-                .filter(song -> song.getDuracion() != null)
-                .mapToLong(Song::getDuracion)
-                .sum();
-
-        String stats = String.format(
-                "📊 Biblioteca: %d canciones • %d con preview • %s total",
-                songs.size(),
-                songsWithPreview,
-                formatDuration(totalDuration)
-        );
+        computations.run(JOB_LIBRARY_STATS, () -> LibraryStats.compute(songs), stats -> {
+            String text = String.format(
+                    "📊 Biblioteca: %d canciones • %d con preview • %s total",
+                    stats.getTotalSongs(),
+                    stats.getSongsWithPreview(),
+                    formatDuration(stats.getTotalDurationMs())
+            );
 
-        Log.d(TAG, stats);
+            Log.d(TAG, text);
 
-        if (songs.size() > 0) {
-            Snackbar.make(recyclerViewSongs, stats, Snackbar.LENGTH_LONG)
-                    .setAction("VER DETALLES", v -> showDetailedStats(songs))
+            // Los detalles ya están calculados: no hace falta recorrer la lista otra vez
+            Snackbar.make(recyclerViewSongs, text, Snackbar.LENGTH_LONG)
+                    .setAction("VER DETALLES", v -> showDetailedStatsDialog(stats))
                     .show();
-        }
+        });
     }
 
     private void showDetailedStats(List<Song> songs) {
-        StringBuilder statsBuilder = new StringBuilder();
+        computations.run(JOB_DETAILED_STATS, () -> LibraryStats.compute(songs), this::showDetailedStatsDialog);
+    }
 
-        // Contar artistas únicos
-        long uniqueArtists = songs.stream()
-                .flatMap(song -> song.getArtistas().stream())
-                .distinct()
-                .count();
-
-        // Canción más popular
-        Song mostPopular = songs.stream()
-                .filter(song -> song.getPopularidad() != null)
-                .max((s1, s2) -> Double.compare(s1.getPopularidad(), s2.getPopularidad()))
-                .orElse(null);
-
-        // Duración promedio
-        double avgDuration = songs.stream()
-                .filter(song -> song.getDuracion() != null)
-                .mapToInt(Song::getDuracion)
-                .average()
-                .orElse(0);
+    private void showDetailedStatsDialog(LibraryStats stats) {
+        StringBuilder statsBuilder = new StringBuilder();
 
         statsBuilder.append("📊 Estadísticas de tu Biblioteca Musical\n\n");
-        statsBuilder.append("🎵 Total de canciones: ").append(songs.size()).append("\n");
-        statsBuilder.append("🎤 Artistas únicos: ").append(uniqueArtists).append("\n");
-        statsBuilder.append("⏱️ Duración promedio: ").append(formatDuration((long)avgDuration)).append("\n");
+        statsBuilder.append("🎵 Total de canciones: ").append(stats.getTotalSongs()).append("\n");
+        statsBuilder.append("🎤 Artistas únicos: ").append(stats.getUniqueArtists()).append("\n");
+        statsBuilder.append("⏱️ Duración promedio: ").append(formatDuration(stats.getAverageDurationMs())).append("\n");
 
+        Song mostPopular = stats.getMostPopular();
         if (mostPopular != null) {
             statsBuilder.append("⭐ Más popular: ").append(mostPopular.getNombre())
                     .append(" (").append(String.format("%.0f%%", mostPopular.getPopularidad())).append(")\n");
@@ -942,6 +1007,11 @@ public class HomeActivity extends AppCompatActivity
         tvEmptyState.setText(message);
     }
 
+    // ✅ NUEVO: Todas las pantallas reciben los eventos del reproductor; solo la visible avisa
+    private boolean isInForeground() {
+        return getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED);
+    }
+
     private void showError(String message) {
         Toast.makeText(this, message, Toast.LENGTH_LONG).show();
     }
@@ -1002,8 +1072,12 @@ public class HomeActivity extends AppCompatActivity
         }
 
         try {
-            Intent intent = new Intent(this, MusicPlayerActivity.class);
-            intent.putExtra(MusicPlayerActivity.EXTRA_SONG, song);
+            // ✅ MODIFICADO: Solo se pasa el id; el reproductor la busca en SongRepository
+            Intent intent = MusicPlayerActivity.createIntent(this, song);
+
+            // ✅ NUEVO: La lista visible pasa a ser la cola de reproducción
+            musicPlayer.setQueue(songAdapter.getAllSongs(), song);
+
             startActivity(intent);
             Log.d(TAG, "✅ Abriendo reproductor para: " + song.getNombre());
 
@@ -1026,9 +1100,8 @@ public class HomeActivity extends AppCompatActivity
     @Override
     public void onPlaybackStarted(Song song) {
         runOnUiThread(() -> {
-            showSuccess("▶️ Reproduciendo: " + song.getNombre());
-            songAdapter.notifyDataSetChanged();
-            progressHandler.post(progressRunnable);
+            if (isInForeground()) showSuccess("▶️ Reproduciendo: " + song.getNombre());
+            songAdapter.updatePlayingState();
 
             // Mostrar mini reproductor
             showMiniPlayer(song);
@@ -1039,9 +1112,8 @@ public class HomeActivity extends AppCompatActivity
     @Override
     public void onPlaybackPaused() {
         runOnUiThread(() -> {
-            showSuccess("⏸️ Reproducción pausada");
-            songAdapter.notifyDataSetChanged();
-            progressHandler.removeCallbacks(progressRunnable);
+            if (isInForeground()) showSuccess("⏸️ Reproducción pausada");
+            songAdapter.updatePlayingState();
 
             // Actualizar mini reproductor
             updateMiniPlayerPlayButton();
@@ -1051,9 +1123,8 @@ public class HomeActivity extends AppCompatActivity
     @Override
     public void onPlaybackStopped() {
         runOnUiThread(() -> {
-            showSuccess("⏹️ Reproducción detenida");
-            songAdapter.notifyDataSetChanged();
-            progressHandler.removeCallbacks(progressRunnable);
+            if (isInForeground()) showSuccess("⏹️ Reproducción detenida");
+            songAdapter.updatePlayingState();
 
             // Ocultar mini reproductor
             hideMiniPlayer();
@@ -1063,9 +1134,8 @@ public class HomeActivity extends AppCompatActivity
     @Override
     public void onPlaybackCompleted() {
         runOnUiThread(() -> {
-            showSuccess("✅ Reproducción completada");
-            songAdapter.notifyDataSetChanged();
-            progressHandler.removeCallbacks(progressRunnable);
+            if (isInForeground()) showSuccess("✅ Reproducción completada");
+            songAdapter.updatePlayingState();
 
             // Ocultar mini reproductor
             hideMiniPlayer();
@@ -1075,8 +1145,7 @@ public class HomeActivity extends AppCompatActivity
     @Override
     public void onPlaybackError(String error) {
         runOnUiThread(() -> {
-            showError("❌ " + error);
-            progressHandler.removeCallbacks(progressRunnable);
+            if (isInForeground()) showError("❌ " + error);
 
             // Ocultar mini reproductor en caso de error
             hideMiniPlayer();
@@ -1084,10 +1153,14 @@ public class HomeActivity extends AppCompatActivity
     }
 
     @Override
-    public void onProgressUpdate(int currentPosition, int duration) {
-        if (duration > 0) {
-            int progress = (currentPosition * 100) / duration;
-            Log.d(TAG, "Progreso: " + progress + "% (" + currentPosition + "/" + duration + ")");
+    public void onPlaybackStateRestored(Song song, boolean isPlaying) {
+        // Al registrarse: sincronizar mini reproductor e iconos sin avisos
+        songAdapter.updatePlayingState();
+        if (song != null) {
+            showMiniPlayer(song);
+            updateMiniPlayerPlayButton();
+        } else {
+            hideMiniPlayer();
         }
     }
 
@@ -1192,7 +1265,7 @@ public class HomeActivity extends AppCompatActivity
 
     private void handleRefresh() {
         if (currentSearchQuery.isEmpty()) {
-            loadSongsFromDatabaseEnhanced();
+            loadSongsFromDatabaseEnhanced(true);
         } else {
             searchInDatabase(currentSearchQuery);
         }
@@ -1205,27 +1278,17 @@ public class HomeActivity extends AppCompatActivity
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (progressHandler != null && progressRunnable != null) {
-            progressHandler.removeCallbacks(progressRunnable);
-        }
         if (searchHandler != null && searchRunnable != null) {
             searchHandler.removeCallbacks(searchRunnable);
         }
-    }
-
-    @Override
-    protected void onPause() {
-        super.onPause();
-        if (progressHandler != null && progressRunnable != null) {
-            progressHandler.removeCallbacks(progressRunnable);
+        searchCalls.cancel();
+        if (catalogCall != null) {
+            catalogCall.cancel();
         }
-    }
-
-    @Override
-    protected void onResume() {
-        super.onResume();
-        if (musicPlayer != null && musicPlayer.isPlaying()) {
-            progressHandler.post(progressRunnable);
+        computations.cancelAll();
+        SongRepository.getInstance().getStore().removeObserver(catalogObserver);
+        if (musicPlayer != null) {
+            musicPlayer.removeListener(this);
         }
     }
 }
\ No newline at end of file
@@ -1,7 +1,6 @@
 package com.sise.orbitsongv1.activities;
 
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
@@ -17,6 +16,7 @@ import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.SearchView;
+import androidx.lifecycle.Lifecycle;
 import androidx.appcompat.widget.Toolbar;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -27,16 +27,20 @@ import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.snackbar.Snackbar;
 import com.sise.orbitsongv1.R;
 import com.sise.orbitsongv1.adapters.SongAdapter;
+import com.sise.orbitsongv1.models.LibraryStats;
 import com.sise.orbitsongv1.models.Song;
+import com.sise.orbitsongv1.repositories.SongRepository;
+import com.sise.orbitsongv1.repositories.SongStore;
+import com.sise.orbitsongv1.services.AuthTokenHolder;
 import com.sise.orbitsongv1.services.MusicPlayerService;
-import com.sise.orbitsongv1.services.RetrofitClient;
-import com.sise.orbitsongv1.utils.Constants;
+import com.sise.orbitsongv1.utils.ComputationRunner;
+import com.sise.orbitsongv1.utils.SongFilterEngine;
+import com.sise.orbitsongv1.utils.SongSearchIndex;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
 
 public class LibraryActivity extends AppCompatActivity
         implements SongAdapter.OnSongClickListener, MusicPlayerService.MusicPlayerListener {
@@ -62,17 +66,25 @@ public class LibraryActivity extends AppCompatActivity
 
     // Logic Variables
     private SongAdapter songAdapter;
-    private String authToken;
     private boolean isLoading = false;
     private MusicPlayerService musicPlayer;
-    private Handler progressHandler;
-    private Runnable progressRunnable;
 
     // Search Variables
     private Handler searchHandler;
     private Runnable searchRunnable;
     private String currentSearchQuery = "";
-    private List<Song> allSongs; // Lista completa para filtrado local
+    private List<Song> allSongs; // Lista completa para filtrado local (proyección del SongStore)
+    private final SongStore.Observer catalogObserver = catalogKey -> onCatalogChanged();
+    private final SongSearchIndex searchIndex = new SongSearchIndex(); // ✅ NUEVO: índice de allSongs
+    private final SongFilterEngine filterEngine = new SongFilterEngine(searchIndex);
+
+    // ✅ NUEVO: Filtros y estadísticas en segundo plano (el índice solo se toca desde ahí)
+    private final ComputationRunner computations = new ComputationRunner();
+    // ✅ NUEVO: Carga del catálogo en curso (se cancela al salir o al recargar)
+    private Call<?> catalogCall;
+    private static final String JOB_INDEX = "index";
+    private static final String JOB_FILTER = "filter";
+    private static final String JOB_STATS = "stats";
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -82,12 +94,13 @@ public class LibraryActivity extends AppCompatActivity
         initViews();
         setupToolbar();
         setupRecyclerView();
-        getAuthToken();
+        checkAuthToken();
         setupListeners();
         setupMusicPlayer();
         setupSearchHandler();
 
         // Cargar todas las canciones al iniciar
+        SongRepository.getInstance().getStore().addObserver(catalogObserver);
         loadAllSongsFromDatabase();
     }
 
@@ -124,13 +137,12 @@ public class LibraryActivity extends AppCompatActivity
         songAdapter.setOnSongClickListener(this);
         recyclerViewSongs.setLayoutManager(new LinearLayoutManager(this));
         recyclerViewSongs.setAdapter(songAdapter);
+        songAdapter.attachImagePreloader(recyclerViewSongs);
     }
 
-    private void getAuthToken() {
-        SharedPreferences prefs = getSharedPreferences(Constants.PREFS_NAME, MODE_PRIVATE);
-        String token = prefs.getString(Constants.TOKEN_KEY, null);
-        if (token != null) {
-            authToken = "Bearer " + token;
+    private void checkAuthToken() {
+        // La cabecera Authorization la añade RetrofitClient desde AuthTokenHolder
+        if (AuthTokenHolder.getInstance().hasToken()) {
             Log.d(TAG, "✅ Token obtenido correctamente");
         } else {
             Log.e(TAG, "❌ No se encontró token");
@@ -140,7 +152,7 @@ public class LibraryActivity extends AppCompatActivity
     }
 
     private void setupListeners() {
-        swipeRefreshLayout.setOnRefreshListener(this::loadAllSongsFromDatabase);
+        swipeRefreshLayout.setOnRefreshListener(() -> loadAllSongsFromDatabase(true));
 
         fabSearch.setOnClickListener(v -> {
             // Abrir diálogo de búsqueda avanzada
@@ -151,20 +163,7 @@ public class LibraryActivity extends AppCompatActivity
     private void setupMusicPlayer() {
         musicPlayer = MusicPlayerService.getInstance();
         musicPlayer.initialize(this);
-        musicPlayer.setListener(this);
-
-        progressHandler = new Handler(Looper.getMainLooper());
-        progressRunnable = new Runnable() {
-            @Override
-            public void run() {
-                if (musicPlayer.isPlaying()) {
-                    int currentPosition = musicPlayer.getCurrentPosition();
-                    int duration = musicPlayer.getDuration();
-                    onProgressUpdate(currentPosition, duration);
-                    progressHandler.postDelayed(this, 1000);
-                }
-            }
-        };
+        musicPlayer.addListener(this);
     }
 
     private void setupSearchHandler() {
@@ -204,6 +203,13 @@ public class LibraryActivity extends AppCompatActivity
     // ========================================
 
     private void loadAllSongsFromDatabase() {
+        loadAllSongsFromDatabase(false);
+    }
+
+    /**
+     * @param forceRefresh false para reutilizar el catálogo si otra pantalla lo cargó hace poco
+     */
+    private void loadAllSongsFromDatabase(boolean forceRefresh) {
         if (isLoading) return;
 
         showLoading(true);
@@ -212,44 +218,111 @@ public class LibraryActivity extends AppCompatActivity
 
         Log.d(TAG, "📋 Cargando TODAS las canciones desde la base de datos...");
 
-        // Usar el endpoint /todas que no filtra por preview
-        RetrofitClient.getInstance().getApiService().getAllSongs(authToken)
-                .enqueue(new Callback<List<Song>>() {
-                    @Override
-                    public void onResponse(Call<List<Song>> call, Response<List<Song>> response) {
-                        showLoading(false);
-                        swipeRefreshLayout.setRefreshing(false);
-
-                        if (response.isSuccessful() && response.body() != null) {
-                            allSongs = response.body();
-                            Log.d(TAG, "✅ TODAS las canciones cargadas: " + allSongs.size());
-
-                            if (allSongs.isEmpty()) {
-                                showEmptyStateWithMessage(
-                                        "📚 Tu biblioteca está vacía\n\n" +
-                                                "Regresa al inicio para cargar música desde Spotify"
-                                );
-                            } else {
-                                songAdapter.setSongs(allSongs);
-                                showEmptyState(false);
-                                updateLibraryStats(allSongs);
-                                showSuccess("📚 " + allSongs.size() + " canciones en tu biblioteca");
-                            }
-                        } else {
-                            Log.e(TAG, "❌ Error al cargar canciones. Código: " + response.code());
-                            handleApiError(response.code());
-                        }
-                    }
+        // Usar el catálogo /todas que no filtra por preview (disco primero, luego red)
+        if (catalogCall != null) {
+            catalogCall.cancel();
+        }
+        catalogCall = SongRepository.getInstance().loadAllSongs(forceRefresh, new SongRepository.CatalogCallback() {
+            @Override
+            public void onCatalogLoaded(List<Song> songs, boolean fromCache) {
+                if (fromCache) {
+                    // ⚡ Dibujar al instante desde disco mientras se refresca en segundo plano
+                    Log.d(TAG, "⚡ Biblioteca servida desde disco: " + songs.size());
+                    allSongs = songs;
+                    computations.run(JOB_INDEX, () -> {
+                        searchIndex.rebuild(songs);
+                        return null;
+                    }, null);
+                    progressBar.setVisibility(View.GONE);
+                    swipeRefreshLayout.setRefreshing(true);
+                    songAdapter.setSongs(allSongs);
+                    showEmptyState(false);
+                    updateLibraryStats(allSongs);
+                    return;
+                }
 
-                    @Override
-                    public void onFailure(Call<List<Song>> call, Throwable t) {
-                        showLoading(false);
-                        swipeRefreshLayout.setRefreshing(false);
-                        Log.e(TAG, "❌ Error de conexión", t);
-                        showError("Error de conexión: " + t.getMessage());
-                        showEmptyStateWithMessage("❌ Error de conexión\n\nVerifica tu internet e intenta de nuevo");
-                    }
-                });
+                showLoading(false);
+                swipeRefreshLayout.setRefreshing(false);
+                allSongs = songs;
+                computations.run(JOB_INDEX, () -> {
+                    // Solo reindexa lo que cambió respecto al catálogo guardado
+                    searchIndex.sync(songs);
+                    return null;
+                }, null);
+                Log.d(TAG, "✅ TODAS las canciones cargadas: " + allSongs.size());
+
+                if (allSongs.isEmpty()) {
+                    showEmptyStateWithMessage(
+                            "📚 Tu biblioteca está vacía\n\n" +
+                                    "Regresa al inicio para cargar música desde Spotify"
+                    );
+                } else {
+                    songAdapter.setSongs(allSongs);
+                    showEmptyState(false);
+                    updateLibraryStats(allSongs);
+                    showSuccess("📚 " + allSongs.size() + " canciones en tu biblioteca");
+                }
+            }
+
+            @Override
+            public void onCatalogChunk(List<Song> newSongs, boolean firstChunk) {
+                // ⚡ Primeras canciones en pantalla; el índice se construye con la lista completa
+                progressBar.setVisibility(View.GONE);
+                swipeRefreshLayout.setRefreshing(true);
+                showEmptyState(false);
+                if (firstChunk) {
+                    songAdapter.setSongs(newSongs);
+                } else {
+                    songAdapter.addSongs(newSongs);
+                }
+            }
+
+            @Override
+            public void onCatalogError(int httpCode) {
+                showLoading(false);
+                swipeRefreshLayout.setRefreshing(false);
+                Log.e(TAG, "❌ Error al cargar canciones. Código: " + httpCode);
+                if (allSongs != null && !allSongs.isEmpty() && httpCode != 401) {
+                    showError("No se pudo actualizar la biblioteca (Código: " + httpCode + ")");
+                } else {
+                    handleApiError(httpCode);
+                }
+            }
+
+            @Override
+            public void onCatalogFailure(Throwable t) {
+                showLoading(false);
+                swipeRefreshLayout.setRefreshing(false);
+                Log.e(TAG, "❌ Error de conexión", t);
+                showError("Error de conexión: " + t.getMessage());
+                if (allSongs == null || allSongs.isEmpty()) {
+                    showEmptyStateWithMessage("❌ Error de conexión\n\nVerifica tu internet e intenta de nuevo");
+                }
+            }
+        });
+    }
+
+    /**
+     * ✅ NUEVO: Otra pantalla actualizó el almacén. El índice se mantiene al día siempre;
+     * la lista solo se redibuja si no hay una búsqueda activa.
+     */
+    private void onCatalogChanged() {
+        if (isLoading || allSongs == null) return;
+
+        List<Song> latest = SongRepository.getInstance().getStore()
+                .getCatalog(SongRepository.CATALOG_ALL);
+        if (latest == null || latest == allSongs || latest.isEmpty()) return;
+
+        Log.d(TAG, "🔄 Biblioteca actualizada desde otra pantalla: " + latest.size());
+        allSongs = latest;
+        computations.run(JOB_INDEX, () -> {
+            searchIndex.sync(latest);
+            return null;
+        }, null);
+        if (currentSearchQuery.isEmpty()) {
+            songAdapter.setSongs(latest);
+            updateLibraryStats(latest);
+        }
     }
 
     private void filterSongsLocally(String query) {
@@ -259,35 +332,42 @@ public class LibraryActivity extends AppCompatActivity
         }
 
         if (query.trim().isEmpty()) {
-            songAdapter.setSongs(allSongs);
-            updateLibraryStats(allSongs);
             currentSearchQuery = "";
+            List<Song> songs = allSongs;
+            // También por JOB_FILTER: descarta cualquier filtro anterior que siga pendiente
+            computations.run(JOB_FILTER, () -> {
+                filterEngine.reset();
+                return songs;
+            }, result -> {
+                songAdapter.setSongs(result);
+                updateLibraryStats(result);
+                showEmptyState(false);
+            });
             return;
         }
 
         currentSearchQuery = query;
-        String queryLower = query.toLowerCase().trim();
-
-        List<Song> filteredSongs = allSongs.stream()
-                .filter(song ->
-                        song.getNombre().toLowerCase().contains(queryLower) ||
-                                song.getArtistasString().toLowerCase().contains(queryLower) ||
-                                (song.getAlbum() != null && song.getAlbum().toLowerCase().contains(queryLower))
-                )
-                .collect(java.util.stream.Collectors.toList());
-
-        songAdapter.setSongs(filteredSongs);
-        updateLibraryStats(filteredSongs);
-
-        if (filteredSongs.isEmpty()) {
-            showEmptyStateWithMessage(
-                    "🔍 No se encontraron resultados para:\n\"" + query + "\"\n\n" +
-                            "💡 Intenta con otros términos o limpia la búsqueda"
-            );
-        } else {
-            showEmptyState(false);
-            showToast("🔍 " + filteredSongs.size() + " resultado(s) encontrado(s)");
-        }
+
+        // ✅ NUEVO: Resuelto desde el índice; si la consulta amplía la anterior solo se revisan sus resultados
+        computations.run(JOB_FILTER, () -> {
+            List<Song> filtered = filterEngine.filter(query);
+            Log.d(TAG, "🔍 '" + query + "': " + filtered.size() +
+                    (filterEngine.isLastQueryNarrowed() ? " (refinado)" : " (índice)"));
+            return filtered;
+        }, filteredSongs -> {
+            songAdapter.setSongs(filteredSongs);
+            updateLibraryStats(filteredSongs);
+
+            if (filteredSongs.isEmpty()) {
+                showEmptyStateWithMessage(
+                        "🔍 No se encontraron resultados para:\n\"" + query + "\"\n\n" +
+                                "💡 Intenta con otros términos o limpia la búsqueda"
+                );
+            } else {
+                showEmptyState(false);
+                showToast("🔍 " + filteredSongs.size() + " resultado(s) encontrado(s)");
+            }
+        });
     }
 
     // ========================================
@@ -297,21 +377,17 @@ public class LibraryActivity extends AppCompatActivity
     private void updateLibraryStats(List<Song> songs) {
         if (tvLibraryStats == null || songs == null) return;
 
-        long songsWithPreview = songs.stream().filter(Song::hasPreview).count();
-        long totalDuration = songs.stream()
-                .filter(song -> song.getDuracion() != null)
-                .mapToLong(Song::getDuracion)
-                .sum();
-
-        String stats = String.format(
-                "🎵 %d canciones • 🎧 %d reproducibles • ⏱️ %s total",
-                songs.size(),
-                songsWithPreview,
-                formatDuration(totalDuration)
-        );
+        computations.run(JOB_STATS, () -> LibraryStats.compute(songs), stats -> {
+            String text = String.format(
+                    "🎵 %d canciones • 🎧 %d reproducibles • ⏱️ %s total",
+                    stats.getTotalSongs(),
+                    stats.getSongsWithPreview(),
+                    formatDuration(stats.getTotalDurationMs())
+            );
 
-        tvLibraryStats.setText(stats);
-        tvLibraryStats.setVisibility(View.VISIBLE);
+            tvLibraryStats.setText(text);
+            tvLibraryStats.setVisibility(View.VISIBLE);
+        });
     }
 
     private String formatDuration(long totalMs) {
@@ -387,22 +463,29 @@ public class LibraryActivity extends AppCompatActivity
             return;
         }
 
-        List<Song> songsWithPreview = allSongs.stream()
-                .filter(Song::hasPreview)
-                .collect(java.util.stream.Collectors.toList());
-
-        songAdapter.setSongs(songsWithPreview);
-        updateLibraryStats(songsWithPreview);
-        showToast("🎧 " + songsWithPreview.size() + " canciones reproducibles");
-
-        if (songsWithPreview.isEmpty()) {
-            showEmptyStateWithMessage(
-                    "🎧 No hay canciones reproducibles\n\n" +
-                            "Las canciones necesitan tener preview de Spotify para reproducirse"
-            );
-        } else {
-            showEmptyState(false);
-        }
+        List<Song> songs = allSongs;
+        computations.run(JOB_FILTER, () -> {
+            List<Song> withPreview = new ArrayList<>();
+            for (Song song : songs) {
+                if (song.hasPreview()) {
+                    withPreview.add(song);
+                }
+            }
+            return withPreview;
+        }, songsWithPreview -> {
+            songAdapter.setSongs(songsWithPreview);
+            updateLibraryStats(songsWithPreview);
+            showToast("🎧 " + songsWithPreview.size() + " canciones reproducibles");
+
+            if (songsWithPreview.isEmpty()) {
+                showEmptyStateWithMessage(
+                        "🎧 No hay canciones reproducibles\n\n" +
+                                "Las canciones necesitan tener preview de Spotify para reproducirse"
+                );
+            } else {
+                showEmptyState(false);
+            }
+        });
     }
 
     private void handleApiError(int code) {
@@ -431,6 +514,11 @@ public class LibraryActivity extends AppCompatActivity
         tvEmptyState.setText(message);
     }
 
+    // ✅ NUEVO: Todas las pantallas reciben los eventos del reproductor; solo la visible avisa
+    private boolean isInForeground() {
+        return getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED);
+    }
+
     private void showError(String message) {
         Toast.makeText(this, message, Toast.LENGTH_LONG).show();
     }
@@ -541,8 +629,12 @@ public class LibraryActivity extends AppCompatActivity
         }
 
         try {
-            Intent intent = new Intent(this, MusicPlayerActivity.class);
-            intent.putExtra(MusicPlayerActivity.EXTRA_SONG, song);
+            // ✅ MODIFICADO: Solo se pasa el id; el reproductor la busca en SongRepository
+            Intent intent = MusicPlayerActivity.createIntent(this, song);
+
+            // ✅ NUEVO: La lista visible pasa a ser la cola de reproducción
+            musicPlayer.setQueue(songAdapter.getAllSongs(), song);
+
             startActivity(intent);
             Log.d(TAG, "✅ Abriendo reproductor para: " + song.getNombre());
         } catch (Exception e) {
@@ -558,8 +650,7 @@ public class LibraryActivity extends AppCompatActivity
     @Override
     public void onPlaybackStarted(Song song) {
         runOnUiThread(() -> {
-            songAdapter.notifyDataSetChanged();
-            progressHandler.post(progressRunnable);
+            songAdapter.updatePlayingState();
             showMiniPlayer(song);
             updateMiniPlayerPlayButton();
         });
@@ -568,8 +659,7 @@ public class LibraryActivity extends AppCompatActivity
     @Override
     public void onPlaybackPaused() {
         runOnUiThread(() -> {
-            songAdapter.notifyDataSetChanged();
-            progressHandler.removeCallbacks(progressRunnable);
+            songAdapter.updatePlayingState();
             updateMiniPlayerPlayButton();
         });
     }
@@ -577,8 +667,7 @@ public class LibraryActivity extends AppCompatActivity
     @Override
     public void onPlaybackStopped() {
         runOnUiThread(() -> {
-            songAdapter.notifyDataSetChanged();
-            progressHandler.removeCallbacks(progressRunnable);
+            songAdapter.updatePlayingState();
             hideMiniPlayer();
         });
     }
@@ -586,8 +675,7 @@ public class LibraryActivity extends AppCompatActivity
     @Override
     public void onPlaybackCompleted() {
         runOnUiThread(() -> {
-            songAdapter.notifyDataSetChanged();
-            progressHandler.removeCallbacks(progressRunnable);
+            songAdapter.updatePlayingState();
             hideMiniPlayer();
         });
     }
@@ -595,15 +683,21 @@ public class LibraryActivity extends AppCompatActivity
     @Override
     public void onPlaybackError(String error) {
         runOnUiThread(() -> {
-            showError("❌ " + error);
-            progressHandler.removeCallbacks(progressRunnable);
+            if (isInForeground()) showError("❌ " + error);
             hideMiniPlayer();
         });
     }
 
     @Override
-    public void onProgressUpdate(int currentPosition, int duration) {
-        // Actualizar progreso si es necesario
+    public void onPlaybackStateRestored(Song song, boolean isPlaying) {
+        // Al registrarse: sincronizar mini reproductor e iconos sin avisos
+        songAdapter.updatePlayingState();
+        if (song != null) {
+            showMiniPlayer(song);
+            updateMiniPlayerPlayButton();
+        } else {
+            hideMiniPlayer();
+        }
     }
 
     // ========================================
@@ -664,7 +758,7 @@ public class LibraryActivity extends AppCompatActivity
             showAdvancedSearchDialog();
             return true;
         } else if (id == R.id.action_refresh) {
-            loadAllSongsFromDatabase();
+            loadAllSongsFromDatabase(true);
             return true;
         }
 
@@ -678,27 +772,16 @@ public class LibraryActivity extends AppCompatActivity
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (progressHandler != null && progressRunnable != null) {
-            progressHandler.removeCallbacks(progressRunnable);
-        }
         if (searchHandler != null && searchRunnable != null) {
             searchHandler.removeCallbacks(searchRunnable);
         }
-    }
-
-    @Override
-    protected void onPause() {
-        super.onPause();
-        if (progressHandler != null && progressRunnable != null) {
-            progressHandler.removeCallbacks(progressRunnable);
+        if (catalogCall != null) {
+            catalogCall.cancel();
         }
-    }
-
-    @Override
-    protected void onResume() {
-        super.onResume();
-        if (musicPlayer != null && musicPlayer.isPlaying()) {
-            progressHandler.post(progressRunnable);
+        computations.cancelAll();
+        SongRepository.getInstance().getStore().removeObserver(catalogObserver);
+        if (musicPlayer != null) {
+            musicPlayer.removeListener(this);
         }
     }
 }
\ No newline at end of file
@@ -17,6 +17,7 @@ import com.sise.orbitsongv1.R;
 import com.sise.orbitsongv1.models.LoginRequest;
 import com.sise.orbitsongv1.models.LoginResponse;
 import com.sise.orbitsongv1.models.User;
+import com.sise.orbitsongv1.services.AuthTokenHolder;
 import com.sise.orbitsongv1.services.RetrofitClient;
 import com.sise.orbitsongv1.utils.Constants;
 
@@ -196,6 +197,7 @@ public class LoginActivity extends AppCompatActivity {
 
             // Guardar token
             editor.putString(Constants.TOKEN_KEY, token);
+            AuthTokenHolder.getInstance().setToken(token);
 
             // Guardar datos del usuario si están disponibles
             if (user != null) {
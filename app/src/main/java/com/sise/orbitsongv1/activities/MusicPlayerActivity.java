@@ -2,6 +2,7 @@ package com.sise.orbitsongv1.activities;
 
 import android.content.Context;
 import android.content.Intent;
+import android.content.res.ColorStateList;
 import android.media.AudioAttributes;
 import android.media.AudioManager;
 import android.media.MediaPlayer;
@@ -19,16 +20,27 @@ import android.widget.SeekBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import androidx.core.content.IntentCompat;
+import androidx.core.os.BundleCompat;
+import androidx.core.widget.ImageViewCompat;
+import androidx.lifecycle.Lifecycle;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.DecodeFormat;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.bumptech.glide.request.RequestOptions;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
+import com.sise.orbitsongv1.OrbitSongGlideModule;
 import com.sise.orbitsongv1.R;
 import com.sise.orbitsongv1.models.Song;
+import com.sise.orbitsongv1.repositories.SongRepository;
 import com.sise.orbitsongv1.services.MusicPlayerService;
+import com.sise.orbitsongv1.services.PlaybackMetrics;
+import com.sise.orbitsongv1.services.PlaybackQueue;
+import com.sise.orbitsongv1.services.PreviewAudioCache;
 import com.sise.orbitsongv1.services.RetrofitClient;
 
 import java.util.Collections;
@@ -36,7 +48,10 @@ import java.util.Collections;
 public class MusicPlayerActivity extends AppCompatActivity implements MusicPlayerService.MusicPlayerListener {
 
     private static final String TAG = "MusicPlayerActivity";
-    public static final String EXTRA_SONG = "extra_song";
+    public static final String EXTRA_SONG = "extra_song";         // Parcelable: solo canciones sin id
+    public static final String EXTRA_SONG_ID = "extra_song_id";
+    private static final String STATE_SONG = "state_song";
+    private static final int UPCOMING_ART_PRELOAD = 2;
 
     // UI Components
     private Toolbar toolbar;
@@ -59,8 +74,9 @@ public class MusicPlayerActivity extends AppCompatActivity implements MusicPlaye
     // Data
     private Song currentSong;
     private MusicPlayerService musicPlayer;
-    private Handler progressHandler;
-    private Runnable progressRunnable;
+    // ✅ MODIFICADO: El progreso lo publica el MusicPlayerService (temporizador compartido)
+    private final MusicPlayerService.ProgressObserver progressObserver = this::onProgressUpdate;
+    private final Handler simulationHandler = new Handler(Looper.getMainLooper());
     private boolean isUserSeekingProgress = false;
 
     @Override
@@ -74,10 +90,25 @@ public class MusicPlayerActivity extends AppCompatActivity implements MusicPlaye
         setupListeners();
         setupTestingButtons();
 
-        loadSongFromIntent();
+        loadSongFromIntent(savedInstanceState);
         checkAudioSettings();
     }
 
+    /**
+     * ✅ NUEVO: Intent para abrir el reproductor. Solo viaja el id; la canción se resuelve
+     * desde SongRepository (sin serialización Java a través del Binder).
+     */
+    public static Intent createIntent(Context context, Song song) {
+        Intent intent = new Intent(context, MusicPlayerActivity.class);
+        if (song.getId() != null) {
+            SongRepository.getInstance().remember(song);
+            intent.putExtra(EXTRA_SONG_ID, song.getId());
+        } else {
+            intent.putExtra(EXTRA_SONG, song);
+        }
+        return intent;
+    }
+
     private void initViews() {
         toolbar = findViewById(R.id.toolbar);
         ivAlbumArt = findViewById(R.id.iv_album_art);
@@ -109,19 +140,7 @@ public class MusicPlayerActivity extends AppCompatActivity implements MusicPlaye
     private void setupMusicPlayer() {
         musicPlayer = MusicPlayerService.getInstance();
         musicPlayer.initialize(this);
-        musicPlayer.setListener(this);
-
-        // Configurar handler para actualizar progreso
-        progressHandler = new Handler(Looper.getMainLooper());
-        progressRunnable = new Runnable() {
-            @Override
-            public void run() {
-                if (musicPlayer.isPlaying() && !isUserSeekingProgress) {
-                    updateProgress();
-                    progressHandler.postDelayed(this, 1000);
-                }
-            }
-        };
+        musicPlayer.addListener(this);
 
         Log.d(TAG, "✅ MusicPlayerService configurado en MusicPlayerActivity");
     }
@@ -194,17 +213,24 @@ public class MusicPlayerActivity extends AppCompatActivity implements MusicPlaye
 
         // Botones de navegación
         btnPrevious.setOnClickListener(v -> {
-            showToast("Función de canción anterior no implementada aún");
+            // ✅ NUEVO: Anterior de la cola (o reinicio de la actual)
+            if (!musicPlayer.skipToPrevious()) {
+                showToast("No hay canción anterior en la lista");
+            }
         });
 
         btnNext.setOnClickListener(v -> {
-            showToast("Función de canción siguiente no implementada aún");
+            // ✅ NUEVO: Salto a la siguiente canción (precargada si ya dio tiempo)
+            if (!musicPlayer.skipToNext()) {
+                showToast("No hay siguiente canción en la lista");
+            }
         });
 
         // Botones de modo
         btnRepeat.setOnClickListener(v -> toggleRepeat());
         btnShuffle.setOnClickListener(v -> toggleShuffle());
         btnFavorite.setOnClickListener(v -> toggleFavorite());
+        updateModeButtons();
 
         // SeekBar
         seekBarProgress.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
@@ -234,10 +260,27 @@ public class MusicPlayerActivity extends AppCompatActivity implements MusicPlaye
         });
     }
 
-    private void loadSongFromIntent() {
+    private void loadSongFromIntent(Bundle savedInstanceState) {
+        // ✅ NUEVO: Tras la muerte del proceso el repositorio está vacío; usar la copia guardada
+        Song restored = savedInstanceState != null
+                ? BundleCompat.getParcelable(savedInstanceState, STATE_SONG, Song.class)
+                : null;
+        if (restored != null) {
+            SongRepository.getInstance().remember(restored);
+            currentSong = restored;
+            displaySongInfo(currentSong);
+            Song playing = musicPlayer.getCurrentSong();
+            if (playing == null || !restored.equals(playing)) {
+                playSong(currentSong);
+            }
+            return;
+        }
+
         Intent intent = getIntent();
-        if (intent != null && intent.hasExtra(EXTRA_SONG)) {
-            currentSong = (Song) intent.getSerializableExtra(EXTRA_SONG);
+        if (intent != null && (intent.hasExtra(EXTRA_SONG_ID) || intent.hasExtra(EXTRA_SONG))) {
+            currentSong = intent.hasExtra(EXTRA_SONG_ID)
+                    ? SongRepository.getInstance().getSongById(intent.getStringExtra(EXTRA_SONG_ID))
+                    : IntentCompat.getParcelableExtra(intent, EXTRA_SONG, Song.class);
             if (currentSong != null) {
                 displaySongInfo(currentSong);
                 playSong(currentSong);
@@ -406,6 +449,8 @@ public class MusicPlayerActivity extends AppCompatActivity implements MusicPlaye
         Log.d(TAG, "   🎵 currentSong: " + (musicPlayer.getCurrentSong() != null ? musicPlayer.getCurrentSong().getNombre() : "NULL"));
         Log.d(TAG, "   ⏱️ position: " + musicPlayer.getCurrentPosition());
         Log.d(TAG, "   📏 duration: " + musicPlayer.getDuration());
+        Log.d(TAG, OrbitSongGlideModule.getStatsSummary());
+        Log.d(TAG, PreviewAudioCache.getInstance().getStatsSummary());
 
         // Estado del sistema
         AudioManager audioManager = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
@@ -524,21 +569,25 @@ public class MusicPlayerActivity extends AppCompatActivity implements MusicPlaye
 
     private void loadAlbumArt(Song song) {
         if (song.getImagenUrl() != null && !song.getImagenUrl().trim().isEmpty()) {
-            RequestOptions options = new RequestOptions()
-                    .centerCrop()
-                    .placeholder(R.drawable.gradient_album_placeholder)
-                    .error(R.drawable.gradient_album_placeholder)
-                    .diskCacheStrategy(DiskCacheStrategy.ALL);
-
             Glide.with(this)
                     .load(song.getImagenUrl())
-                    .apply(options)
+                    .apply(albumArtOptions())
                     .into(ivAlbumArt);
         } else {
             ivAlbumArt.setImageResource(R.drawable.gradient_album_placeholder);
         }
     }
 
+    // Mismas opciones al mostrar y al precargar, para que compartan entrada de caché
+    private RequestOptions albumArtOptions() {
+        return new RequestOptions()
+                .centerCrop()
+                .format(DecodeFormat.PREFER_ARGB_8888) // Carátula grande: sin bandas de color
+                .placeholder(R.drawable.gradient_album_placeholder)
+                .error(R.drawable.gradient_album_placeholder)
+                .diskCacheStrategy(DiskCacheStrategy.ALL);
+    }
+
     // MÉTODO MEJORADO: playSong con debug completo y test de backend
     private void playSong(Song song) {
         Log.d(TAG, "🎵 === PLAYSONG MEJORADO CON BACKEND TEST ===");
@@ -611,7 +660,7 @@ public class MusicPlayerActivity extends AppCompatActivity implements MusicPlaye
                 simulateProgress();
             } else {
                 showToast("⏸️ Simulando pausa");
-                progressHandler.removeCallbacks(progressRunnable);
+                simulationHandler.removeCallbacksAndMessages(null);
             }
             return;
         }
@@ -638,18 +687,6 @@ public class MusicPlayerActivity extends AppCompatActivity implements MusicPlaye
         }
     }
 
-    private void updateProgress() {
-        if (musicPlayer.isPlaying()) {
-            int currentPosition = musicPlayer.getCurrentPosition();
-            int duration = musicPlayer.getDuration();
-
-            seekBarProgress.setProgress(currentPosition);
-            updateCurrentTimeDisplay(currentPosition);
-
-            Log.d(TAG, "Progreso actualizado: " + currentPosition + "/" + duration + "ms");
-        }
-    }
-
     private void updateCurrentTimeDisplay(int currentPosition) {
         int minutes = currentPosition / 60000;
         int seconds = (currentPosition % 60000) / 1000;
@@ -659,7 +696,8 @@ public class MusicPlayerActivity extends AppCompatActivity implements MusicPlaye
 
     private void simulateProgress() {
         if (currentSong != null && currentSong.getDuracion() != null) {
-            progressHandler.post(new Runnable() {
+            simulationHandler.removeCallbacksAndMessages(null);
+            simulationHandler.post(new Runnable() {
                 int simulatedPosition = 0;
                 final int maxDuration = currentSong.getDuracion();
 
@@ -683,25 +721,77 @@ public class MusicPlayerActivity extends AppCompatActivity implements MusicPlaye
                         updateCurrentTimeDisplay(simulatedPosition);
 
                         // Continuar simulación
-                        progressHandler.postDelayed(this, 1000);
+                        simulationHandler.postDelayed(this, 1000);
                     }
                 }
             });
         }
     }
 
+    // ✅ MODIFICADO: Repetición y aleatorio los gestiona la cola del MusicPlayerService
     private void toggleRepeat() {
-        showToast("Función de repetir no implementada aún");
+        PlaybackQueue.RepeatMode mode = musicPlayer.cycleRepeatMode();
+        updateModeButtons();
+
+        switch (mode) {
+            case ALL:
+                showToast("🔁 Repetir lista");
+                break;
+            case ONE:
+                showToast("🔂 Repetir canción");
+                break;
+            default:
+                showToast("Repetición desactivada");
+                break;
+        }
     }
 
     private void toggleShuffle() {
-        showToast("Función de aleatorio no implementada aún");
+        boolean enabled = !musicPlayer.isShuffleEnabled();
+        musicPlayer.setShuffleEnabled(enabled);
+        updateModeButtons();
+        preloadUpcomingArt();
+        showToast(enabled ? "🔀 Aleatorio activado" : "Aleatorio desactivado");
+    }
+
+    private void updateModeButtons() {
+        PlaybackQueue.RepeatMode mode = musicPlayer.getRepeatMode();
+        btnRepeat.setAlpha(mode != PlaybackQueue.RepeatMode.OFF ? 1.0f : 0.7f);
+        btnRepeat.setContentDescription(mode == PlaybackQueue.RepeatMode.ONE ? "Repetir canción"
+                : mode == PlaybackQueue.RepeatMode.ALL ? "Repetir lista" : "Repetir");
+        ImageViewCompat.setImageTintList(btnRepeat, ColorStateList.valueOf(
+                getColor(mode != PlaybackQueue.RepeatMode.OFF ? R.color.spotify_green : android.R.color.white)));
+
+        boolean shuffle = musicPlayer.isShuffleEnabled();
+        btnShuffle.setAlpha(shuffle ? 1.0f : 0.7f);
+        ImageViewCompat.setImageTintList(btnShuffle, ColorStateList.valueOf(
+                getColor(shuffle ? R.color.spotify_green : android.R.color.white)));
+    }
+
+    // ✅ NUEVO: Carátulas de las próximas canciones de la cola, al tamaño de la vista
+    private void preloadUpcomingArt() {
+        int width = ivAlbumArt.getWidth();
+        int height = ivAlbumArt.getHeight();
+        if (width == 0 || height == 0) return;
+
+        for (Song upcoming : musicPlayer.getUpcomingSongs(UPCOMING_ART_PRELOAD)) {
+            if (upcoming.getImagenUrl() == null || upcoming.getImagenUrl().trim().isEmpty()) continue;
+            Glide.with(this)
+                    .load(upcoming.getImagenUrl())
+                    .apply(albumArtOptions())
+                    .preload(width, height);
+        }
     }
 
     private void toggleFavorite() {
         showToast("Función de favoritos no implementada aún");
     }
 
+    // ✅ NUEVO: Todas las pantallas reciben los eventos del reproductor; solo la visible avisa
+    private boolean isInForeground() {
+        return getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED);
+    }
+
     private void showToast(String message) {
         Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
     }
@@ -785,7 +875,8 @@ public class MusicPlayerActivity extends AppCompatActivity implements MusicPlaye
                 "🔍 Test Backend Preview",
                 "🎤 Test Múltiples Artistas",
                 "📊 Debug Estado Completo",
-                "🔄 Test Completo (Todo)"
+                "🔄 Test Completo (Todo)",
+                "⏱️ Métricas de Reproducción"
         };
 
         androidx.appcompat.app.AlertDialog.Builder builder =
@@ -825,12 +916,38 @@ public class MusicPlayerActivity extends AppCompatActivity implements MusicPlaye
                     runCompleteTestSequence();
                     showToast("🔄 Test completo iniciado - revisa logs");
                     break;
+                case 8:
+                    showPlaybackMetrics();
+                    break;
             }
         });
         builder.setNegativeButton("Cancelar", null);
         builder.show();
     }
 
+    // ✅ NUEVO: Percentiles de tiempo hasta el primer audio, exportables como texto
+    private void showPlaybackMetrics() {
+        String report = PlaybackMetrics.getInstance().exportReport();
+        Log.d(TAG, report);
+
+        new androidx.appcompat.app.AlertDialog.Builder(this)
+                .setTitle("⏱️ Métricas de Reproducción")
+                .setMessage(report)
+                .setPositiveButton("Exportar", (dialog, which) -> {
+                    Intent share = new Intent(Intent.ACTION_SEND);
+                    share.setType("text/plain");
+                    share.putExtra(Intent.EXTRA_SUBJECT, "OrbitSong - métricas de reproducción");
+                    share.putExtra(Intent.EXTRA_TEXT, report);
+                    startActivity(Intent.createChooser(share, "Exportar métricas"));
+                })
+                .setNeutralButton("Reiniciar", (dialog, which) -> {
+                    PlaybackMetrics.getInstance().reset();
+                    showToast("🧹 Métricas reiniciadas");
+                })
+                .setNegativeButton("Cerrar", null)
+                .show();
+    }
+
     // Secuencia de test completo
     private void runCompleteTestSequence() {
         Log.d(TAG, "🧪 === INICIANDO SECUENCIA DE TEST COMPLETO ===");
@@ -886,9 +1003,16 @@ public class MusicPlayerActivity extends AppCompatActivity implements MusicPlaye
     public void onPlaybackStarted(Song song) {
         runOnUiThread(() -> {
             Log.d(TAG, "✅ Reproducción iniciada: " + song.getNombre());
+
+            // ✅ NUEVO: Puede ser la siguiente canción (salto o fin de la anterior)
+            if (currentSong == null || song.getId() == null || !song.getId().equals(currentSong.getId())) {
+                currentSong = song;
+                displaySongInfo(song);
+            }
+            preloadUpcomingArt();
+
             updatePlayPauseButton(true);
-            progressHandler.post(progressRunnable);
-            showToast("▶️ Reproduciendo: " + song.getNombre());
+            if (isInForeground()) showToast("▶️ Reproduciendo: " + song.getNombre());
         });
     }
 
@@ -897,8 +1021,7 @@ public class MusicPlayerActivity extends AppCompatActivity implements MusicPlaye
         runOnUiThread(() -> {
             Log.d(TAG, "⏸️ Reproducción pausada");
             updatePlayPauseButton(false);
-            progressHandler.removeCallbacks(progressRunnable);
-            showToast("⏸️ Reproducción pausada");
+            if (isInForeground()) showToast("⏸️ Reproducción pausada");
         });
     }
 
@@ -907,10 +1030,9 @@ public class MusicPlayerActivity extends AppCompatActivity implements MusicPlaye
         runOnUiThread(() -> {
             Log.d(TAG, "⏹️ Reproducción detenida");
             updatePlayPauseButton(false);
-            progressHandler.removeCallbacks(progressRunnable);
             seekBarProgress.setProgress(0);
             tvCurrentTime.setText("0:00");
-            showToast("⏹️ Reproducción detenida");
+            if (isInForeground()) showToast("⏹️ Reproducción detenida");
         });
     }
 
@@ -919,10 +1041,9 @@ public class MusicPlayerActivity extends AppCompatActivity implements MusicPlaye
         runOnUiThread(() -> {
             Log.d(TAG, "✅ Reproducción completada");
             updatePlayPauseButton(false);
-            progressHandler.removeCallbacks(progressRunnable);
             seekBarProgress.setProgress(0);
             tvCurrentTime.setText("0:00");
-            showToast("✅ Reproducción completada");
+            if (isInForeground()) showToast("✅ Reproducción completada");
         });
     }
 
@@ -931,11 +1052,12 @@ public class MusicPlayerActivity extends AppCompatActivity implements MusicPlaye
         runOnUiThread(() -> {
             Log.e(TAG, "❌ Error de reproducción: " + error);
             updatePlayPauseButton(false);
-            progressHandler.removeCallbacks(progressRunnable);
-            showToast("❌ Error: " + error);
+            if (isInForeground()) showToast("❌ Error: " + error);
 
-            // Si hay error, ofrecer opciones de testing
+            // Si hay error, ofrecer opciones de testing (solo en la pantalla visible)
+            if (!isInForeground()) return;
             new Handler().postDelayed(() -> {
+                if (isFinishing()) return;
                 new androidx.appcompat.app.AlertDialog.Builder(this)
                         .setTitle("❌ Error de Reproducción")
                         .setMessage("Se detectó un error. ¿Quieres ejecutar tests de diagnóstico?")
@@ -947,8 +1069,19 @@ public class MusicPlayerActivity extends AppCompatActivity implements MusicPlaye
     }
 
     @Override
-    public void onProgressUpdate(int currentPosition, int duration) {
-        // Este método se llama desde el servicio, pero preferimos manejar el progreso localmente
+    public void onPlaybackStateRestored(Song song, boolean isPlaying) {
+        // Al registrarse: el botón refleja si ya está sonando esta canción
+        boolean sameSong = song != null && currentSong != null
+                && song.getId() != null && song.getId().equals(currentSong.getId());
+        updatePlayPauseButton(sameSong && isPlaying);
+    }
+
+    // ✅ MODIFICADO: Destino del ProgressObserver (temporizador compartido del servicio, ver onResume)
+    private void onProgressUpdate(int currentPosition, int duration) {
+        if (isUserSeekingProgress || currentSong == null || !currentSong.hasPreview()) return;
+
+        seekBarProgress.setProgress(currentPosition);
+        updateCurrentTimeDisplay(currentPosition);
     }
 
     // ========================================
@@ -964,11 +1097,20 @@ public class MusicPlayerActivity extends AppCompatActivity implements MusicPlaye
         return super.onOptionsItemSelected(item);
     }
 
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        if (currentSong != null) {
+            outState.putParcelable(STATE_SONG, currentSong);
+        }
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (progressHandler != null && progressRunnable != null) {
-            progressHandler.removeCallbacks(progressRunnable);
+        simulationHandler.removeCallbacksAndMessages(null);
+        if (musicPlayer != null) {
+            musicPlayer.removeListener(this);
         }
         Log.d(TAG, "🔄 MusicPlayerActivity destruida");
     }
@@ -976,16 +1118,17 @@ public class MusicPlayerActivity extends AppCompatActivity implements MusicPlaye
     @Override
     protected void onPause() {
         super.onPause();
-        if (progressHandler != null && progressRunnable != null) {
-            progressHandler.removeCallbacks(progressRunnable);
+        if (musicPlayer != null) {
+            musicPlayer.removeProgressObserver(progressObserver);
         }
     }
 
     @Override
     protected void onResume() {
         super.onResume();
-        if (musicPlayer != null && musicPlayer.isPlaying()) {
-            progressHandler.post(progressRunnable);
+        if (musicPlayer != null) {
+            // Barra de progreso: actualización fluida mientras está visible
+            musicPlayer.addProgressObserver(progressObserver, MusicPlayerService.PROGRESS_INTERVAL_SMOOTH_MS);
         }
 
         // Configurar testing avanzado al reanudar
@@ -1,6 +1,7 @@
 package com.sise.orbitsongv1.adapters;
 
 import android.content.Context;
+import android.graphics.drawable.Drawable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -9,11 +10,18 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.bumptech.glide.request.RequestOptions;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.chip.Chip;
 import com.sise.orbitsongv1.R;
@@ -21,15 +29,61 @@ import com.sise.orbitsongv1.models.Song;
 import com.sise.orbitsongv1.services.MusicPlayerService;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
-public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder> {
+public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder>
+        implements ListPreloader.PreloadModelProvider<Song> {
+
+    // Filas por delante del scroll cuya carátula se precarga
+    private static final int ALBUM_ART_PRELOAD_ITEMS = 10;
 
     private Context context;
-    private List<Song> songs;
     private OnSongClickListener listener;
     private MusicPlayerService musicPlayer;
 
+    // ✅ NUEVO: Carátulas al tamaño exacto de iv_album_cover (misma clave de caché al precargar)
+    private final int thumbSizePx;
+    private final RequestOptions thumbOptions;
+
+    // ✅ NUEVO: Diff en segundo plano; solo se notifican las filas que cambian
+    private final AsyncListDiffer<Song> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+
+    // ✅ MODIFICADO: Última lista enviada al differ (puede ir por delante de la mostrada
+    // mientras se calcula un diff): addSongs añade sobre esta para no perder bloques
+    private List<Song> submittedSongs = Collections.emptyList();
+
+    // Ids estables: cada canción recibe un long fijo mientras siga en la lista. Clave: id, o
+    // spotifyId para resultados de Spotify sin guardar; sin ninguno, la propia instancia
+    private Map<String, Long> stableIds = new HashMap<>();
+    private Map<Song, Long> anonymousStableIds = new IdentityHashMap<>();
+    private long nextStableId = 1;
+
+    // ✅ NUEVO: Payload para refrescar solo el botón de reproducir de una fila
+    public static final Object PAYLOAD_PLAY_STATE = new Object();
+
+    // Canción que la lista muestra como "en reproducción" (por id: las posiciones cambian con cada diff)
+    private String shownPlayingSongId;
+
+    private static final DiffUtil.ItemCallback<Song> DIFF_CALLBACK = new DiffUtil.ItemCallback<Song>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Song oldItem, @NonNull Song newItem) {
+            String oldKey = stableKey(oldItem);
+            if (oldKey == null) {
+                return oldItem == newItem;
+            }
+            return oldKey.equals(stableKey(newItem));
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Song oldItem, @NonNull Song newItem) {
+            return oldItem.hasSameContent(newItem);
+        }
+    };
+
     public interface OnSongClickListener {
         void onSongClick(Song song);
         void onSongPlayClick(Song song);
@@ -37,13 +91,73 @@ public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder
 
     public SongAdapter(Context context) {
         this.context = context;
-        this.songs = new ArrayList<>();
         this.musicPlayer = MusicPlayerService.getInstance();
+        this.thumbSizePx = context.getResources().getDimensionPixelSize(R.dimen.album_cover_thumb_size);
+        this.thumbOptions = new RequestOptions()
+                .override(thumbSizePx, thumbSizePx)
+                .centerCrop()
+                .placeholder(R.drawable.gradient_album_placeholder)
+                .error(R.drawable.gradient_album_placeholder)
+                .diskCacheStrategy(DiskCacheStrategy.ALL);
+        setHasStableIds(true);
+    }
+
+    /**
+     * Precarga las carátulas de las próximas filas en la dirección del scroll.
+     */
+    public void attachImagePreloader(RecyclerView recyclerView) {
+        RecyclerViewPreloader<Song> preloader = new RecyclerViewPreloader<>(
+                Glide.with(context),
+                this,
+                new FixedPreloadSizeProvider<>(thumbSizePx, thumbSizePx),
+                ALBUM_ART_PRELOAD_ITEMS);
+        recyclerView.addOnScrollListener(preloader);
+    }
+
+    @NonNull
+    @Override
+    public List<Song> getPreloadItems(int position) {
+        List<Song> songs = currentSongs();
+        if (position < 0 || position >= songs.size()) {
+            return Collections.emptyList();
+        }
+        Song song = songs.get(position);
+        return hasAlbumImage(song) ? Collections.singletonList(song) : Collections.emptyList();
+    }
+
+    @Nullable
+    @Override
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull Song song) {
+        return albumThumbRequest(song);
+    }
+
+    private RequestBuilder<Drawable> albumThumbRequest(Song song) {
+        return Glide.with(context)
+                .load(song.getImagenUrl())
+                .apply(thumbOptions);
+    }
+
+    private static boolean hasAlbumImage(Song song) {
+        return song.getImagenUrl() != null && !song.getImagenUrl().trim().isEmpty();
     }
 
     public void setSongs(List<Song> songs) {
-        this.songs = songs != null ? songs : new ArrayList<>();
-        notifyDataSetChanged();
+        // Copia: AsyncListDiffer exige que la lista no cambie después de enviarla
+        submit(songs != null ? new ArrayList<>(songs) : new ArrayList<>());
+    }
+
+    private void submit(List<Song> songs) {
+        submittedSongs = songs;
+        differ.submitList(songs, () -> {
+            // Solo si no llegó otra lista mientras tanto
+            if (differ.getCurrentList() == submittedSongs) {
+                pruneStableIds(submittedSongs);
+            }
+        });
+    }
+
+    private List<Song> currentSongs() {
+        return differ.getCurrentList();
     }
 
     public void setOnSongClickListener(OnSongClickListener listener) {
@@ -59,13 +173,71 @@ public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder
 
     @Override
     public void onBindViewHolder(@NonNull SongViewHolder holder, int position) {
-        Song song = songs.get(position);
+        Song song = currentSongs().get(position);
         holder.bind(song);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull SongViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && onlyPlayState(payloads)) {
+            // Solo cambia el icono: sin tocar textos, carátula ni listeners
+            holder.bindPlayState(currentSongs().get(position));
+            return;
+        }
+        super.onBindViewHolder(holder, position, payloads);
+    }
+
+    private static boolean onlyPlayState(List<Object> payloads) {
+        for (Object payload : payloads) {
+            if (payload != PAYLOAD_PLAY_STATE) return false;
+        }
+        return true;
+    }
+
     @Override
     public int getItemCount() {
-        return songs.size();
+        return currentSongs().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        Song song = currentSongs().get(position);
+        String key = stableKey(song);
+
+        Long stableId = key != null ? stableIds.get(key) : anonymousStableIds.get(song);
+        if (stableId == null) {
+            stableId = nextStableId++;
+            if (key != null) {
+                stableIds.put(key, stableId);
+            } else {
+                anonymousStableIds.put(song, stableId);
+            }
+        }
+        return stableId;
+    }
+
+    private static String stableKey(Song song) {
+        if (song.getId() != null) return song.getId();
+        if (song.getSpotifyId() != null) return "spotify:" + song.getSpotifyId();
+        return null;
+    }
+
+    // ✅ NUEVO: Olvida los ids de canciones que ya no están en la lista (si no, crecen con cada búsqueda)
+    private void pruneStableIds(List<Song> songs) {
+        Map<String, Long> kept = new HashMap<>();
+        Map<Song, Long> keptAnonymous = new IdentityHashMap<>();
+        for (Song song : songs) {
+            String key = stableKey(song);
+            Long stableId = key != null ? stableIds.get(key) : anonymousStableIds.get(song);
+            if (stableId == null) continue;
+            if (key != null) {
+                kept.put(key, stableId);
+            } else {
+                keptAnonymous.put(song, stableId);
+            }
+        }
+        stableIds = kept;
+        anonymousStableIds = keptAnonymous;
     }
 
     public class SongViewHolder extends RecyclerView.ViewHolder {
@@ -123,23 +295,27 @@ public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder
         }
 
         private void loadAlbumImage(Song song) {
-            if (song.getImagenUrl() != null && !song.getImagenUrl().trim().isEmpty()) {
-                RequestOptions options = new RequestOptions()
-                        .centerCrop()
-                        .placeholder(R.drawable.gradient_album_placeholder)
-                        .error(R.drawable.gradient_album_placeholder)
-                        .diskCacheStrategy(DiskCacheStrategy.ALL);
-
-                Glide.with(context)
-                        .load(song.getImagenUrl())
-                        .apply(options)
-                        .into(ivAlbumCover);
+            if (hasAlbumImage(song)) {
+                albumThumbRequest(song).into(ivAlbumCover);
             } else {
                 ivAlbumCover.setImageResource(R.drawable.gradient_album_placeholder);
             }
         }
 
         private void configurePlayButton(Song song) {
+            bindPlayState(song);
+
+            // Verificar si tiene preview disponible
+            if (!song.hasPreview()) {
+                btnPlay.setEnabled(false);
+                btnPlay.setAlpha(0.5f);
+            } else {
+                btnPlay.setEnabled(true);
+                btnPlay.setAlpha(1.0f);
+            }
+        }
+
+        void bindPlayState(Song song) {
             // Verificar si esta canción se está reproduciendo actualmente
             boolean isCurrentSong = musicPlayer.getCurrentSong() != null &&
                     musicPlayer.getCurrentSong().getId() != null &&
@@ -154,15 +330,6 @@ public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder
                 btnPlay.setIcon(context.getDrawable(R.drawable.ic_play_arrow));
                 btnPlay.setContentDescription("Reproducir");
             }
-
-            // Verificar si tiene preview disponible
-            if (!song.hasPreview()) {
-                btnPlay.setEnabled(false);
-                btnPlay.setAlpha(0.5f);
-            } else {
-                btnPlay.setEnabled(true);
-                btnPlay.setAlpha(1.0f);
-            }
         }
 
         private void configureFavoriteButton(Song song) {
@@ -228,12 +395,33 @@ public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder
     }
 
     // Método para actualizar un elemento específico cuando cambie el estado de reproducción
+    // ✅ MODIFICADO: Solo se rebindean la fila que estaba sonando y la que suena ahora
     public void updatePlayingState() {
-        notifyDataSetChanged();
+        Song current = musicPlayer.getCurrentSong();
+        String currentId = current != null ? current.getId() : null;
+
+        if (shownPlayingSongId != null && !shownPlayingSongId.equals(currentId)) {
+            notifyPlayStateChanged(shownPlayingSongId);
+        }
+        if (currentId != null) {
+            notifyPlayStateChanged(currentId);
+        }
+        shownPlayingSongId = currentId;
+    }
+
+    private void notifyPlayStateChanged(String songId) {
+        List<Song> songs = currentSongs();
+        for (int i = 0; i < songs.size(); i++) {
+            if (songId.equals(songs.get(i).getId())) {
+                notifyItemChanged(i, PAYLOAD_PLAY_STATE);
+                return;
+            }
+        }
     }
 
     // Método para obtener la posición de una canción
     public int getPositionForSong(Song song) {
+        List<Song> songs = currentSongs();
         for (int i = 0; i < songs.size(); i++) {
             if (songs.get(i).getId() != null && songs.get(i).getId().equals(song.getId())) {
                 return i;
@@ -243,28 +431,28 @@ public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder
     }
 
     // Método para agregar canciones incrementalmente
+    // ✅ MODIFICADO: Sobre la última lista enviada, no sobre la mostrada (un diff pendiente la dejaría atrás)
     public void addSongs(List<Song> newSongs) {
         if (newSongs != null && !newSongs.isEmpty()) {
-            int startPosition = songs.size();
-            songs.addAll(newSongs);
-            notifyItemRangeInserted(startPosition, newSongs.size());
+            List<Song> updated = new ArrayList<>(submittedSongs.size() + newSongs.size());
+            updated.addAll(submittedSongs);
+            updated.addAll(newSongs);
+            submit(updated);
         }
     }
 
     // Método para limpiar la lista
     public void clearSongs() {
-        int size = songs.size();
-        songs.clear();
-        notifyItemRangeRemoved(0, size);
+        submit(new ArrayList<>());
     }
 
     // Método para obtener todas las canciones
     public List<Song> getAllSongs() {
-        return new ArrayList<>(songs);
+        return new ArrayList<>(currentSongs());
     }
 
     // Método para verificar si hay canciones
     public boolean isEmpty() {
-        return songs.isEmpty();
+        return currentSongs().isEmpty();
     }
 }
\ No newline at end of file
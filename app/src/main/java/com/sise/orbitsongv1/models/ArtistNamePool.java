@@ -0,0 +1,68 @@
+package com.sise.orbitsongv1.models;
+
+/**
+ * Pool acotado de nombres de artista para leer un catálogo.
+ *
+ * En un catálogo grande los mismos artistas se repiten miles de veces: el pool guarda una
+ * sola instancia de cada nombre y la reutiliza, y busca directamente sobre el rango del
+ * texto original, así que un nombre ya visto no crea ningún substring.
+ *
+ * Tabla hash de direccionamiento abierto con tamaño fijo: al llegar al máximo deja de
+ * añadir nombres (los nuevos se devuelven sin compartir). No es thread-safe; se crea uno
+ * por catálogo (ver GsonProvider.newCatalogGson()).
+ */
+public final class ArtistNamePool {
+
+    static final int DEFAULT_MAX_NAMES = 4096;
+
+    private final String[] table;
+    private final int maxNames;
+    private int size = 0;
+
+    public ArtistNamePool() {
+        this(DEFAULT_MAX_NAMES);
+    }
+
+    public ArtistNamePool(int maxNames) {
+        this.maxNames = Math.max(1, maxNames);
+        // Ocupación máxima del 50%: siempre queda un hueco y las búsquedas son cortas
+        int capacity = Integer.highestOneBit(this.maxNames * 2 - 1) << 1;
+        this.table = new String[capacity];
+    }
+
+    /**
+     * @return la instancia compartida de source[start, end)
+     */
+    public String intern(String source, int start, int end) {
+        int length = end - start;
+        int mask = table.length - 1;
+
+        for (int i = hash(source, start, end) & mask; ; i = (i + 1) & mask) {
+            String candidate = table[i];
+            if (candidate == null) {
+                // substring() devuelve el propio source si el rango es el texto completo
+                String name = source.substring(start, end);
+                if (size < maxNames) {
+                    table[i] = name;
+                    size++;
+                }
+                return name;
+            }
+            if (candidate.length() == length && candidate.regionMatches(0, source, start, length)) {
+                return candidate;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static int hash(String source, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + source.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+}
@@ -14,14 +14,36 @@ import com.google.gson.stream.JsonToken;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * TypeAdapter personalizado para manejar el campo "artistas" que puede venir
  * como String o como Array desde diferentes endpoints del backend.
+ *
+ * ✅ MODIFICADO: Lectura con pocas asignaciones: las comas se buscan con indexOf (sin
+ * regex), los espacios se recortan por índices, sin artistas se devuelve la lista vacía
+ * compartida y con uno solo una singletonList. Con un {@link ArtistNamePool} los nombres
+ * repetidos del catálogo comparten una única instancia.
+ *
+ * Las listas devueltas pueden ser compartidas: no deben modificarse.
  */
 public class ArtistasTypeAdapter extends TypeAdapter<List<String>> {
 
+    private final ArtistNamePool namePool;   // null: sin compartir nombres
+
+    public ArtistasTypeAdapter() {
+        this(null);
+    }
+
+    /**
+     * @param namePool pool del catálogo que se está leyendo; el adaptador deja de ser
+     *                 thread-safe, así que no debe registrarse en un Gson compartido
+     */
+    public ArtistasTypeAdapter(ArtistNamePool namePool) {
+        this.namePool = namePool;
+    }
+
     @Override
     public void write(JsonWriter out, List<String> value) throws IOException {
         if (value == null || value.isEmpty()) {
@@ -39,53 +61,99 @@ public class ArtistasTypeAdapter extends TypeAdapter<List<String>> {
 
     @Override
     public List<String> read(JsonReader in) throws IOException {
-        List<String> artistas = new ArrayList<>();
-
         JsonToken token = in.peek();
 
         switch (token) {
             case BEGIN_ARRAY:
                 // Caso 1: Es un array ["Artista1", "Artista2"]
-                in.beginArray();
-                while (in.hasNext()) {
-                    String artista = in.nextString();
-                    if (artista != null && !artista.trim().isEmpty()) {
-                        artistas.add(artista.trim());
-                    }
-                }
-                in.endArray();
-                break;
+                return readArray(in);
 
             case STRING:
                 // Caso 2: Es un string "Artista1, Artista2" o "Artista1"
-                String artistasString = in.nextString();
-                if (artistasString != null && !artistasString.trim().isEmpty()) {
-                    // Si contiene comas, dividir
-                    if (artistasString.contains(",")) {
-                        String[] artistasArray = artistasString.split(",");
-                        for (String artista : artistasArray) {
-                            String trimmedArtista = artista.trim();
-                            if (!trimmedArtista.isEmpty()) {
-                                artistas.add(trimmedArtista);
-                            }
-                        }
-                    } else {
-                        // Un solo artista
-                        artistas.add(artistasString.trim());
-                    }
-                }
-                break;
+                return split(in.nextString());
 
             case NULL:
                 // Caso 3: Es null
                 in.nextNull();
-                break;
+                return Collections.emptyList();
 
             default:
                 throw new JsonParseException("Expected String or Array for artistas field, but was " + token);
         }
+    }
 
-        return artistas;
+    private List<String> readArray(JsonReader in) throws IOException {
+        String first = null;
+        List<String> artistas = null;
+
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            String value = in.nextString();
+            String artista = name(value, 0, value.length());
+            if (artista == null) continue;
+
+            if (first == null) {
+                first = artista;
+            } else {
+                if (artistas == null) {
+                    artistas = new ArrayList<>(4);
+                    artistas.add(first);
+                }
+                artistas.add(artista);
+            }
+        }
+        in.endArray();
+
+        return toList(first, artistas);
+    }
+
+    private List<String> split(String value) {
+        String first = null;
+        List<String> artistas = null;
+
+        int start = 0;
+        int length = value.length();
+        while (start <= length) {
+            int comma = value.indexOf(',', start);
+            int end = comma >= 0 ? comma : length;
+
+            String artista = name(value, start, end);
+            if (artista != null) {
+                if (first == null) {
+                    first = artista;
+                } else {
+                    if (artistas == null) {
+                        artistas = new ArrayList<>(4);
+                        artistas.add(first);
+                    }
+                    artistas.add(artista);
+                }
+            }
+
+            if (comma < 0) break;
+            start = comma + 1;
+        }
+
+        return toList(first, artistas);
+    }
+
+    private static List<String> toList(String first, List<String> artistas) {
+        if (artistas != null) return artistas;
+        if (first != null) return Collections.singletonList(first);
+        return Collections.emptyList();
+    }
+
+    // Nombre recortado de value[start, end) (mismo criterio que trim()); null si queda vacío
+    private String name(String value, int start, int end) {
+        while (start < end && value.charAt(start) <= ' ') start++;
+        while (end > start && value.charAt(end - 1) <= ' ') end--;
+        if (start == end) return null;
+
+        return namePool != null ? namePool.intern(value, start, end) : value.substring(start, end);
     }
 }
 
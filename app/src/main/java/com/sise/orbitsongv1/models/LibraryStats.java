@@ -0,0 +1,91 @@
+package com.sise.orbitsongv1.models;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Estadísticas de una lista de canciones, calculadas en una sola pasada.
+ *
+ * Inmutable: se calcula en segundo plano y se entrega a la UI ya lista para mostrar.
+ */
+public class LibraryStats {
+
+    private final int totalSongs;
+    private final int songsWithPreview;
+    private final long totalDurationMs;
+    private final long averageDurationMs;
+    private final int uniqueArtists;
+    private final Song mostPopular;
+
+    private LibraryStats(int totalSongs, int songsWithPreview, long totalDurationMs,
+                         long averageDurationMs, int uniqueArtists, Song mostPopular) {
+        this.totalSongs = totalSongs;
+        this.songsWithPreview = songsWithPreview;
+        this.totalDurationMs = totalDurationMs;
+        this.averageDurationMs = averageDurationMs;
+        this.uniqueArtists = uniqueArtists;
+        this.mostPopular = mostPopular;
+    }
+
+    public static LibraryStats compute(List<Song> songs) {
+        if (songs == null || songs.isEmpty()) {
+            return new LibraryStats(0, 0, 0, 0, 0, null);
+        }
+
+        int withPreview = 0;
+        long totalDuration = 0;
+        int songsWithDuration = 0;
+        Set<String> artists = new HashSet<>();
+        Song mostPopular = null;
+
+        for (Song song : songs) {
+            if (song.hasPreview()) {
+                withPreview++;
+            }
+            if (song.getDuracion() != null) {
+                totalDuration += song.getDuracion();
+                songsWithDuration++;
+            }
+            artists.addAll(song.getArtistas());
+            if (song.getPopularidad() != null
+                    && (mostPopular == null || song.getPopularidad() > mostPopular.getPopularidad())) {
+                mostPopular = song;
+            }
+        }
+
+        long average = songsWithDuration > 0 ? totalDuration / songsWithDuration : 0;
+        return new LibraryStats(songs.size(), withPreview, totalDuration, average, artists.size(), mostPopular);
+    }
+
+    public int getTotalSongs() {
+        return totalSongs;
+    }
+
+    public int getSongsWithPreview() {
+        return songsWithPreview;
+    }
+
+    public long getTotalDurationMs() {
+        return totalDurationMs;
+    }
+
+    public long getAverageDurationMs() {
+        return averageDurationMs;
+    }
+
+    public int getUniqueArtists() {
+        return uniqueArtists;
+    }
+
+    /**
+     * @return canción con mayor popularidad, o null si ninguna la tiene
+     */
+    public Song getMostPopular() {
+        return mostPopular;
+    }
+
+    public boolean isEmpty() {
+        return totalSongs == 0;
+    }
+}
@@ -0,0 +1,70 @@
+package com.sise.orbitsongv1.models;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * TypeAdapter escrito a mano para {@link LoginResponse} (login y registro).
+ */
+public class LoginResponseTypeAdapter extends TypeAdapter<LoginResponse> {
+
+    private final TypeAdapter<User> userAdapter;
+
+    public LoginResponseTypeAdapter(TypeAdapter<User> userAdapter) {
+        this.userAdapter = userAdapter;
+    }
+
+    @Override
+    public void write(JsonWriter out, LoginResponse response) throws IOException {
+        if (response == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("success").value(response.isSuccess());
+        out.name("message").value(response.getMessage());
+        out.name("token").value(response.getToken());
+        if (response.getUser() != null) {
+            out.name("user");
+            userAdapter.write(out, response.getUser());
+        }
+        out.endObject();
+    }
+
+    @Override
+    public LoginResponse read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        LoginResponse response = new LoginResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "success":
+                    response.setSuccess(JsonFields.nextBool(in));
+                    break;
+                case "message":
+                    response.setMessage(JsonFields.nextString(in));
+                    break;
+                case "token":
+                    response.setToken(JsonFields.nextString(in));
+                    break;
+                case "user":
+                    response.setUser(userAdapter.read(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return response;
+    }
+}
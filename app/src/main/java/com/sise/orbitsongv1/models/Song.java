@@ -1,13 +1,15 @@
 package com.sise.orbitsongv1.models;
 
+import android.os.Parcel;
+import android.os.Parcelable;
+
 import com.google.gson.annotations.SerializedName;
-import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
-public class Song implements Serializable {
-
-    private static final long serialVersionUID = 1L;
+// ✅ MODIFICADO: Parcelable en lugar de Serializable (sin serialización Java por reflexión)
+public class Song implements Parcelable {
 
     @SerializedName("id")
     private String id;
@@ -15,7 +17,7 @@ public class Song implements Serializable {
     @SerializedName("nombre")
     private String nombre;
 
-    // ✅ SIMPLIFICADO: Sin TypeAdapter, el backend envía List<String> directamente
+    // ✅ MODIFICADO: Lo lee SongTypeAdapter (array o String separado por comas)
     @SerializedName("artistas")
     private List<String> artistas;
 
@@ -56,6 +58,57 @@ public class Song implements Serializable {
         this.spotifyId = spotifyId;
     }
 
+    protected Song(Parcel in) {
+        id = in.readString();
+        nombre = in.readString();
+        artistas = in.createStringArrayList();
+        if (artistas == null) {
+            artistas = new ArrayList<>();
+        }
+        album = in.readString();
+        duracion = in.readByte() != 0 ? in.readInt() : null;
+        imagenUrl = in.readString();
+        previewUrl = in.readString();
+        popularidad = in.readByte() != 0 ? in.readDouble() : null;
+        spotifyId = in.readString();
+    }
+
+    public static final Creator<Song> CREATOR = new Creator<Song>() {
+        @Override
+        public Song createFromParcel(Parcel in) {
+            return new Song(in);
+        }
+
+        @Override
+        public Song[] newArray(int size) {
+            return new Song[size];
+        }
+    };
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeString(id);
+        dest.writeString(nombre);
+        dest.writeStringList(artistas);
+        dest.writeString(album);
+        dest.writeByte((byte) (duracion != null ? 1 : 0));
+        if (duracion != null) {
+            dest.writeInt(duracion);
+        }
+        dest.writeString(imagenUrl);
+        dest.writeString(previewUrl);
+        dest.writeByte((byte) (popularidad != null ? 1 : 0));
+        if (popularidad != null) {
+            dest.writeDouble(popularidad);
+        }
+        dest.writeString(spotifyId);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
     // Getters y Setters
     public String getId() {
         return id;
@@ -171,6 +224,20 @@ public class Song implements Serializable {
                 '}';
     }
 
+    /**
+     * equals() solo compara el id; esto compara todo lo que se muestra en la lista.
+     */
+    public boolean hasSameContent(Song other) {
+        if (other == null) return false;
+        return Objects.equals(nombre, other.nombre)
+                && Objects.equals(artistas, other.artistas)
+                && Objects.equals(album, other.album)
+                && Objects.equals(duracion, other.duracion)
+                && Objects.equals(imagenUrl, other.imagenUrl)
+                && Objects.equals(previewUrl, other.previewUrl)
+                && Objects.equals(popularidad, other.popularidad);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
@@ -0,0 +1,114 @@
+package com.sise.orbitsongv1.models;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * TypeAdapter escrito a mano para {@link Song}: lee y escribe campo a campo sin reflexión
+ * (catálogos de miles de canciones, respuestas de búsqueda y catálogo en disco).
+ *
+ * Los nombres coinciden con los @SerializedName del modelo; los campos desconocidos se
+ * ignoran. "artistas" admite array o String separado por comas (ver ArtistasTypeAdapter).
+ */
+public class SongTypeAdapter extends TypeAdapter<Song> {
+
+    private final TypeAdapter<List<String>> artistasAdapter;
+
+    public SongTypeAdapter() {
+        this(new ArtistasTypeAdapter());
+    }
+
+    public SongTypeAdapter(TypeAdapter<List<String>> artistasAdapter) {
+        this.artistasAdapter = artistasAdapter;
+    }
+
+    @Override
+    public void write(JsonWriter out, Song song) throws IOException {
+        if (song == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("id").value(song.getId());
+        out.name("nombre").value(song.getNombre());
+        out.name("artistas");
+        out.beginArray();
+        for (String artista : song.getArtistas()) {
+            out.value(artista);
+        }
+        out.endArray();
+        out.name("album").value(song.getAlbum());
+        out.name("duracion").value(song.getDuracion());
+        out.name("imagenUrl").value(song.getImagenUrl());
+        out.name("previewUrl").value(song.getPreviewUrl());
+        out.name("popularidad").value(song.getPopularidad());
+        out.name("spotifyId").value(song.getSpotifyId());
+        out.endObject();
+    }
+
+    @Override
+    public Song read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        // Locales + constructor completo: sin la lista vacía que crea new Song()
+        String id = null;
+        String nombre = null;
+        List<String> artistas = Collections.emptyList();
+        String album = null;
+        Integer duracion = null;
+        String imagenUrl = null;
+        String previewUrl = null;
+        Double popularidad = null;
+        String spotifyId = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    id = JsonFields.nextString(in);
+                    break;
+                case "nombre":
+                    nombre = JsonFields.nextString(in);
+                    break;
+                case "artistas":
+                    artistas = artistasAdapter.read(in);
+                    break;
+                case "album":
+                    album = JsonFields.nextString(in);
+                    break;
+                case "duracion":
+                    duracion = JsonFields.nextInteger(in);
+                    break;
+                case "imagenUrl":
+                    imagenUrl = JsonFields.nextString(in);
+                    break;
+                case "previewUrl":
+                    previewUrl = JsonFields.nextString(in);
+                    break;
+                case "popularidad":
+                    popularidad = JsonFields.nextDouble(in);
+                    break;
+                case "spotifyId":
+                    spotifyId = JsonFields.nextString(in);
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+
+        return new Song(id, nombre, artistas, album, duracion, imagenUrl, previewUrl,
+                popularidad, spotifyId);
+    }
+}
@@ -0,0 +1,97 @@
+package com.sise.orbitsongv1.models;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TypeAdapter escrito a mano para {@link SpotifySearchResponse}; las canciones se delegan
+ * en el adaptador de Song.
+ */
+public class SpotifySearchResponseTypeAdapter extends TypeAdapter<SpotifySearchResponse> {
+
+    private final TypeAdapter<Song> songAdapter;
+
+    public SpotifySearchResponseTypeAdapter(TypeAdapter<Song> songAdapter) {
+        this.songAdapter = songAdapter;
+    }
+
+    @Override
+    public void write(JsonWriter out, SpotifySearchResponse response) throws IOException {
+        if (response == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("success").value(response.isSuccess());
+        out.name("message").value(response.getMessage());
+        out.name("query").value(response.getQuery());
+        out.name("total").value(response.getTotal());
+        List<Song> canciones = response.getCanciones();
+        if (canciones != null) {
+            out.name("canciones");
+            out.beginArray();
+            for (Song song : canciones) {
+                songAdapter.write(out, song);
+            }
+            out.endArray();
+        }
+        out.endObject();
+    }
+
+    @Override
+    public SpotifySearchResponse read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        SpotifySearchResponse response = new SpotifySearchResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "success":
+                    response.setSuccess(JsonFields.nextBool(in));
+                    break;
+                case "message":
+                    response.setMessage(JsonFields.nextString(in));
+                    break;
+                case "query":
+                    response.setQuery(JsonFields.nextString(in));
+                    break;
+                case "total":
+                    response.setTotal(JsonFields.nextInt(in));
+                    break;
+                case "canciones":
+                    response.setCanciones(readSongs(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return response;
+    }
+
+    private List<Song> readSongs(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        List<Song> songs = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            songs.add(songAdapter.read(in));
+        }
+        in.endArray();
+        return songs;
+    }
+}
@@ -221,6 +221,15 @@ public class User {
         this.password = password;
     }
 
+    // Valores tal cual (sin respaldo): los usa UserTypeAdapter al serializar
+    String usernameField() {
+        return username;
+    }
+
+    String passwordField() {
+        return password;
+    }
+
     // Métodos de utilidad
     public String getDisplayName() {
         if (nombre != null && !nombre.trim().isEmpty()) {
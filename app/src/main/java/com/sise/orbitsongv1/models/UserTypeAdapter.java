@@ -0,0 +1,128 @@
+package com.sise.orbitsongv1.models;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * TypeAdapter escrito a mano para {@link User}. También se usa al enviar el registro, así
+ * que escribe exactamente los campos que escribía Gson por reflexión (los null se omiten).
+ */
+public class UserTypeAdapter extends TypeAdapter<User> {
+
+    @Override
+    public void write(JsonWriter out, User user) throws IOException {
+        if (user == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("id").value(user.getId());
+        out.name("email").value(user.getEmail());
+        out.name("contrasena").value(user.getContrasena());
+        out.name("nombre").value(user.getNombre());
+        out.name("apellido").value(user.getApellido());
+        out.name("telefono").value(user.getTelefono());
+        out.name("fechaNacimiento").value(user.getFechaNacimiento());
+        out.name("genero").value(user.getGenero());
+        out.name("spotifyUserId").value(user.getSpotifyUserId());
+        out.name("spotifyAccessToken").value(user.getSpotifyAccessToken());
+        out.name("spotifyRefreshToken").value(user.getSpotifyRefreshToken());
+        out.name("spotifyTokenExpiresAt").value(user.getSpotifyTokenExpiresAt());
+        out.name("activo").value(user.getActivo());
+        List<String> roles = user.getRoles();
+        if (roles != null) {
+            out.name("roles");
+            out.beginArray();
+            for (String role : roles) {
+                out.value(role);
+            }
+            out.endArray();
+        }
+        out.name("createdAt").value(user.getCreatedAt());
+        out.name("updatedAt").value(user.getUpdatedAt());
+        // Campos de compatibilidad: sin el respaldo a email/contrasena de sus getters
+        out.name("username").value(user.usernameField());
+        out.name("password").value(user.passwordField());
+        out.endObject();
+    }
+
+    @Override
+    public User read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        User user = new User();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    user.setId(JsonFields.nextLong(in));
+                    break;
+                case "email":
+                    user.setEmail(JsonFields.nextString(in));
+                    break;
+                case "contrasena":
+                    user.setContrasena(JsonFields.nextString(in));
+                    break;
+                case "nombre":
+                    user.setNombre(JsonFields.nextString(in));
+                    break;
+                case "apellido":
+                    user.setApellido(JsonFields.nextString(in));
+                    break;
+                case "telefono":
+                    user.setTelefono(JsonFields.nextString(in));
+                    break;
+                case "fechaNacimiento":
+                    user.setFechaNacimiento(JsonFields.nextString(in));
+                    break;
+                case "genero":
+                    user.setGenero(JsonFields.nextString(in));
+                    break;
+                case "spotifyUserId":
+                    user.setSpotifyUserId(JsonFields.nextString(in));
+                    break;
+                case "spotifyAccessToken":
+                    user.setSpotifyAccessToken(JsonFields.nextString(in));
+                    break;
+                case "spotifyRefreshToken":
+                    user.setSpotifyRefreshToken(JsonFields.nextString(in));
+                    break;
+                case "spotifyTokenExpiresAt":
+                    user.setSpotifyTokenExpiresAt(JsonFields.nextString(in));
+                    break;
+                case "activo":
+                    user.setActivo(JsonFields.nextBoolean(in));
+                    break;
+                case "roles":
+                    user.setRoles(JsonFields.nextStringList(in));
+                    break;
+                case "createdAt":
+                    user.setCreatedAt(JsonFields.nextString(in));
+                    break;
+                case "updatedAt":
+                    user.setUpdatedAt(JsonFields.nextString(in));
+                    break;
+                case "username":
+                    user.setUsername(JsonFields.nextString(in));
+                    break;
+                case "password":
+                    user.setPassword(JsonFields.nextString(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return user;
+    }
+}
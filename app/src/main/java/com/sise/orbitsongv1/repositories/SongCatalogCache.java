@@ -0,0 +1,117 @@
+package com.sise.orbitsongv1.repositories;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.sise.orbitsongv1.models.Song;
+import com.sise.orbitsongv1.services.GsonProvider;
+import com.sise.orbitsongv1.utils.Constants;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Almacén en disco del último catálogo de canciones conocido.
+ * Cada catálogo (todas, con preview...) se guarda como un archivo JSON independiente
+ * para que las pantallas puedan dibujar desde disco antes de que responda la red.
+ *
+ * Los métodos son bloqueantes: deben llamarse desde un hilo de fondo.
+ */
+public class SongCatalogCache {
+    private static final String TAG = "SongCatalogCache";
+    private static final Type SONG_LIST_TYPE = new TypeToken<List<Song>>() {}.getType();
+
+    private final File directory;
+    private final Gson gson;
+
+    public SongCatalogCache(Context context, Gson gson) {
+        this.directory = new File(context.getFilesDir(), Constants.CATALOG_CACHE_DIR);
+        this.gson = gson;
+    }
+
+    /**
+     * Lee el catálogo guardado o devuelve null si no existe o está corrupto.
+     */
+    public List<Song> read(String catalogKey) {
+        File file = fileFor(catalogKey);
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (Reader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            // ✅ MODIFICADO: Gson propio de esta lectura para compartir los nombres de artista
+            List<Song> songs = GsonProvider.newCatalogGson().fromJson(reader, SONG_LIST_TYPE);
+            Log.d(TAG, "💾 Catálogo '" + catalogKey + "' leído de disco: " +
+                    (songs != null ? songs.size() : 0) + " canciones");
+            return songs;
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ Catálogo '" + catalogKey + "' ilegible, se descarta", e);
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Guarda el catálogo de forma atómica (archivo temporal + rename) para no dejar
+     * nunca un JSON a medio escribir si el proceso muere.
+     */
+    public void write(String catalogKey, List<Song> songs) {
+        if (songs == null) return;
+
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.w(TAG, "⚠️ No se pudo crear el directorio del catálogo");
+            return;
+        }
+
+        File target = fileFor(catalogKey);
+        File temp = new File(directory, catalogKey + ".json.tmp");
+
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8))) {
+            gson.toJson(songs, SONG_LIST_TYPE, writer);
+        } catch (IOException e) {
+            Log.w(TAG, "⚠️ Error guardando catálogo '" + catalogKey + "'", e);
+            temp.delete();
+            return;
+        }
+
+        if (!temp.renameTo(target)) {
+            Log.w(TAG, "⚠️ No se pudo reemplazar el catálogo '" + catalogKey + "'");
+            temp.delete();
+            return;
+        }
+
+        Log.d(TAG, "💾 Catálogo '" + catalogKey + "' guardado: " + songs.size() + " canciones");
+    }
+
+    /**
+     * Elimina todos los catálogos guardados (por ejemplo al cerrar sesión).
+     */
+    public void clear() {
+        File[] files = directory.listFiles();
+        if (files == null) return;
+
+        for (File file : files) {
+            file.delete();
+        }
+        Log.d(TAG, "🧹 Catálogos en disco eliminados");
+    }
+
+    private File fileFor(String catalogKey) {
+        return new File(directory, catalogKey + ".json");
+    }
+}
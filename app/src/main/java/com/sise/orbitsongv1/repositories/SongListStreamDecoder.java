@@ -0,0 +1,108 @@
+package com.sise.orbitsongv1.repositories;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.sise.orbitsongv1.models.Song;
+import com.sise.orbitsongv1.services.GsonProvider;
+import com.sise.orbitsongv1.services.HttpTimingEventListener;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Decodifica un array JSON de canciones a medida que llega por la red.
+ *
+ * Lee canción a canción con JsonReader (sin cargar el cuerpo entero en memoria) y entrega
+ * bloques: uno pequeño al principio para llenar la primera pantalla cuanto antes y luego
+ * bloques más grandes para no redibujar la lista por cada canción.
+ *
+ * Es bloqueante: se usa desde un hilo de fondo.
+ *
+ * Estos cuerpos no pasan por TimedConverterFactory: el tiempo de decodificación (que aquí
+ * incluye la espera del cuerpo por la red) se entrega a la línea de log de la llamada.
+ */
+class SongListStreamDecoder {
+    private static final String TAG = "SongListStreamDecoder";
+
+    static final int FIRST_CHUNK_SIZE = 20;
+    static final int CHUNK_SIZE = 100;
+
+    interface ChunkListener {
+        /**
+         * @param chunk canciones nuevas desde el bloque anterior
+         */
+        void onChunk(List<Song> chunk);
+    }
+
+    interface CancelSignal {
+        boolean isCanceled();
+    }
+
+    /**
+     * @return la lista completa (la que se guarda en disco y en el almacén)
+     * @throws IOException si el JSON está mal formado, la conexión se corta o se cancela
+     */
+    List<Song> decode(Reader in, ChunkListener listener, CancelSignal cancel) throws IOException {
+        long start = SystemClock.elapsedRealtime();
+        List<Song> songs = HttpTimingEventListener.timeParse(() -> decodeSongs(in, listener, cancel));
+        Log.d(TAG, "🧩 " + songs.size() + " canciones decodificadas en "
+                + (SystemClock.elapsedRealtime() - start) + "ms");
+        return songs;
+    }
+
+    private List<Song> decodeSongs(Reader in, ChunkListener listener, CancelSignal cancel) throws IOException {
+        // ✅ NUEVO: Adaptador propio por catálogo (pool de nombres de artista de esta lectura)
+        TypeAdapter<Song> songAdapter = GsonProvider.newCatalogGson().getAdapter(Song.class);
+        List<Song> songs = new ArrayList<>();
+        List<Song> chunk = new ArrayList<>(FIRST_CHUNK_SIZE);
+        int chunkSize = FIRST_CHUNK_SIZE;
+
+        JsonReader reader = new JsonReader(in);
+        try {
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return songs;
+            }
+
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (cancel != null && cancel.isCanceled()) {
+                    throw new IOException("Canceled");
+                }
+
+                Song song = songAdapter.read(reader);
+                if (song == null) continue;
+                songs.add(song);
+                chunk.add(song);
+
+                if (chunk.size() >= chunkSize) {
+                    listener.onChunk(Collections.unmodifiableList(chunk));
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                    chunkSize = CHUNK_SIZE;
+                }
+            }
+            reader.endArray();
+        } catch (IllegalStateException | JsonParseException e) {
+            throw new IOException("JSON de canciones inválido", e);
+        }
+
+        if (!chunk.isEmpty()) {
+            listener.onChunk(Collections.unmodifiableList(chunk));
+        }
+
+        // Consumir el resto para que la caché HTTP pueda completar su copia del cuerpo
+        char[] drain = new char[256];
+        while (in.read(drain) != -1) {
+            // descartar
+        }
+        return songs;
+    }
+}
@@ -0,0 +1,339 @@
+package com.sise.orbitsongv1.repositories;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.sise.orbitsongv1.models.Song;
+import com.sise.orbitsongv1.services.GsonProvider;
+import com.sise.orbitsongv1.services.RetrofitClient;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Capa de datos entre las activities y ApiService para los catálogos de canciones.
+ *
+ * Cada carga entrega primero el último catálogo guardado en disco (si existe) y
+ * después refresca desde la red en segundo plano, guardando el resultado para la
+ * próxima vez. Todos los callbacks se entregan en el hilo principal.
+ *
+ * Las canciones viven una sola vez en {@link SongStore}: Home y Biblioteca proyectan sus
+ * listas desde ahí, y un catálogo traído de la red hace poco se sirve sin volver a pedirlo.
+ */
+public class SongRepository {
+    private static final String TAG = "SongRepository";
+
+    // Claves de los catálogos persistidos
+    public static final String CATALOG_ALL = "todas";
+    public static final String CATALOG_WITH_PREVIEW = "con_preview";
+
+    private static SongRepository instance;
+
+    private SongCatalogCache catalogCache;
+    // ✅ MODIFICADO: Mismo Gson que Retrofit (TypeAdapters escritos a mano, sin reflexión)
+    private final Gson gson = GsonProvider.getGson();
+    // ✅ NUEVO: Los catálogos de la red se leen por partes en lugar de parsear el cuerpo entero
+    private final SongListStreamDecoder streamDecoder = new SongListStreamDecoder();
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+    private final ExecutorService networkExecutor = Executors.newFixedThreadPool(2);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // ✅ MODIFICADO: Almacén único y deduplicado (también sirve de mapa id → canción)
+    private final SongStore store = new SongStore();
+    // ✅ NUEVO: Cambia al cerrar sesión; lo que llegue de una carga anterior se descarta
+    private final AtomicInteger session = new AtomicInteger();
+
+    public interface CatalogCallback {
+        /**
+         * @param fromCache true si la lista viene del disco y todavía se está refrescando desde la red
+         */
+        void onCatalogLoaded(List<Song> songs, boolean fromCache);
+
+        /**
+         * Canciones que ya llegaron de la red mientras el resto sigue descargándose. Solo se
+         * llama si no se mostró antes una copia de disco o memoria; después llega
+         * onCatalogLoaded con la lista completa (o un error).
+         *
+         * @param newSongs   solo las canciones nuevas de este bloque (se añaden a lo mostrado)
+         * @param firstChunk true en el primer bloque: sustituye lo que hubiera en pantalla
+         */
+        default void onCatalogChunk(List<Song> newSongs, boolean firstChunk) {
+        }
+
+        void onCatalogError(int httpCode);
+
+        void onCatalogFailure(Throwable t);
+    }
+
+    private SongRepository() {
+        // Constructor privado - usar getInstance()
+    }
+
+    public static synchronized SongRepository getInstance() {
+        if (instance == null) {
+            instance = new SongRepository();
+        }
+        return instance;
+    }
+
+    public void initialize(Context context) {
+        if (catalogCache == null) {
+            catalogCache = new SongCatalogCache(context.getApplicationContext(), gson);
+            Log.d(TAG, "✅ SongRepository inicializado");
+        }
+    }
+
+    // ========================================
+    // CATÁLOGOS
+    // ========================================
+
+    public SongStore getStore() {
+        return store;
+    }
+
+    /**
+     * 📚 Todas las canciones (endpoint /todas)
+     *
+     * @param forceRefresh true para ir a la red aunque el catálogo en memoria sea reciente
+     *                     (deslizar para actualizar, botón de actualizar)
+     * @return la llamada, para cancelarla en onDestroy (tras cancelar no llega ningún callback)
+     */
+    public Call<?> loadAllSongs(boolean forceRefresh, CatalogCallback callback) {
+        return loadCatalog(CATALOG_ALL,
+                RetrofitClient.getInstance().getApiService().streamAllSongs(cacheControlFor(forceRefresh)),
+                forceRefresh,
+                callback);
+    }
+
+    /**
+     * 🎵 Solo canciones con preview (endpoint /con-preview). Si "todas" se cargó hace poco
+     * se deriva de ese catálogo sin pedir nada.
+     */
+    public Call<?> loadSongsWithPreview(boolean forceRefresh, CatalogCallback callback) {
+        return loadCatalog(CATALOG_WITH_PREVIEW,
+                RetrofitClient.getInstance().getApiService().streamSongsWithPreview(cacheControlFor(forceRefresh)),
+                forceRefresh,
+                callback);
+    }
+
+    /**
+     * Resultados de búsqueda del backend con las instancias ya conocidas del almacén.
+     */
+    public List<Song> internSearchResults(List<Song> songs) {
+        return store.internAll(songs);
+    }
+
+    /**
+     * Elimina los catálogos persistidos, la caché HTTP y las canciones en memoria (al cerrar sesión).
+     */
+    public void clearCache() {
+        synchronized (store) {
+            session.incrementAndGet();
+            store.clear();
+        }
+        diskExecutor.execute(() -> {
+            if (catalogCache != null) {
+                catalogCache.clear();
+            }
+            // ✅ NUEVO: Las respuestas de catálogo en caché HTTP también son de este usuario
+            RetrofitClient.getInstance().getCachePolicy().evictAll();
+        });
+    }
+
+    // ========================================
+    // ✅ NUEVO: CANCIONES POR ID
+    // ========================================
+
+    /**
+     * Registra la canción para poder recuperarla por id (la versión más reciente gana).
+     * Las canciones sin id no se registran.
+     */
+    public void remember(Song song) {
+        store.intern(song);
+    }
+
+    /**
+     * @return la canción registrada con ese id, o null si no se conoce (p. ej. tras la
+     * muerte del proceso)
+     */
+    public Song getSongById(String id) {
+        return store.getById(id);
+    }
+
+    // Forzado: "no-cache" evita la copia stale-while-revalidate y pide a la red (condicional)
+    private static String cacheControlFor(boolean forceRefresh) {
+        return forceRefresh ? "no-cache" : null;
+    }
+
+    private Call<?> loadCatalog(String catalogKey, Call<ResponseBody> networkCall,
+                                boolean forceRefresh, CatalogCallback callback) {
+        int loadSession = session.get();
+        List<Song> inMemory = store.getCatalog(catalogKey);
+
+        // ✅ NUEVO: Reciente en memoria (p. ej. lo acaba de cargar otra pantalla): no se pide de nuevo
+        if (!forceRefresh && inMemory != null && store.isFresh(catalogKey)) {
+            Log.d(TAG, "🧠 Catálogo '" + catalogKey + "' servido desde memoria: " + inMemory.size());
+            mainHandler.post(() -> {
+                if (!networkCall.isCanceled()) {
+                    callback.onCatalogLoaded(inMemory, false);
+                }
+            });
+            return networkCall;
+        }
+
+        // Si la red responde antes que el disco, la copia en disco ya no sirve
+        AtomicBoolean networkDelivered = new AtomicBoolean(false);
+        // Con una copia completa en pantalla no se muestran bloques parciales de la red
+        AtomicBoolean cacheShown = new AtomicBoolean(false);
+
+        if (inMemory != null && !inMemory.isEmpty()) {
+            // Ya está en memoria: no hace falta leer ni parsear el disco otra vez
+            mainHandler.post(() -> {
+                if (!networkDelivered.get() && !networkCall.isCanceled()) {
+                    cacheShown.set(true);
+                    callback.onCatalogLoaded(inMemory, true);
+                }
+            });
+        } else if (catalogCache != null) {
+            diskExecutor.execute(() -> {
+                List<Song> cached = catalogCache.read(catalogKey);
+                if (cached == null || cached.isEmpty() || networkDelivered.get()) return;
+
+                // ✅ MODIFICADO: Internar y proyectar aquí; al hilo principal solo llega la lista lista
+                List<Song> projection = putCatalog(catalogKey, cached, false, loadSession);
+                if (projection == null) return;
+                mainHandler.post(() -> {
+                    if (!networkDelivered.get() && !networkCall.isCanceled()) {
+                        Log.d(TAG, "⚡ Catálogo '" + catalogKey + "' servido desde disco");
+                        cacheShown.set(true);
+                        callback.onCatalogLoaded(projection, true);
+                    }
+                });
+            });
+        }
+
+        networkExecutor.execute(() ->
+                fetchCatalog(catalogKey, networkCall, loadSession, networkDelivered, cacheShown, callback));
+        return networkCall;
+    }
+
+    /**
+     * Descarga el catálogo en un hilo de fondo y lo decodifica mientras llega, entregando
+     * bloques al hilo principal para que la lista aparezca antes de terminar la descarga.
+     */
+    private void fetchCatalog(String catalogKey, Call<ResponseBody> networkCall, int loadSession,
+                              AtomicBoolean networkDelivered, AtomicBoolean cacheShown,
+                              CatalogCallback callback) {
+        // Solo se toca desde el hilo principal
+        AtomicBoolean firstChunk = new AtomicBoolean(true);
+
+        try {
+            Response<ResponseBody> response = networkCall.execute();
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                int code = response.code();
+                if (response.errorBody() != null) {
+                    response.errorBody().close();
+                }
+                mainHandler.post(() -> {
+                    networkDelivered.set(true);
+                    Log.e(TAG, "❌ Error al refrescar catálogo '" + catalogKey + "'. Código: " + code);
+                    if (!networkCall.isCanceled()) {
+                        callback.onCatalogError(code);
+                    }
+                });
+                return;
+            }
+
+            List<Song> songs;
+            try {
+                // ✅ MODIFICADO: Cada bloque viaja solo (sin copiar lo ya mostrado); el adapter lo añade
+                songs = streamDecoder.decode(body.charStream(), chunk -> {
+                    List<Song> interned = internAll(chunk, loadSession);
+                    if (interned == null) return;
+                    mainHandler.post(() -> {
+                        if (cacheShown.get() || networkCall.isCanceled()) return;
+                        networkDelivered.set(true);
+                        callback.onCatalogChunk(interned, firstChunk.getAndSet(false));
+                    });
+                }, networkCall::isCanceled);
+            } finally {
+                body.close();
+            }
+
+            // Las estadísticas leen el tamaño de la caché en disco: aquí, fuera del hilo principal
+            Log.d(TAG, RetrofitClient.getInstance().getCachePolicy().getStatsSummary());
+
+            // ✅ MODIFICADO: Internar y proyectar el catálogo completo fuera del hilo principal
+            networkDelivered.set(true);
+            List<Song> projection = putCatalog(catalogKey, songs, true, loadSession);
+            if (projection == null) {
+                Log.d(TAG, "🚪 Catálogo '" + catalogKey + "' de una sesión anterior: descartado");
+                return;
+            }
+            persist(catalogKey, songs, loadSession);
+
+            mainHandler.post(() -> {
+                Log.d(TAG, "✅ Catálogo '" + catalogKey + "' refrescado desde la red: " + songs.size());
+                if (!networkCall.isCanceled()) {
+                    callback.onCatalogLoaded(projection, false);
+                }
+                store.notifyChanged(catalogKey);
+            });
+        } catch (IOException | RuntimeException e) {
+            mainHandler.post(() -> {
+                networkDelivered.set(true);
+                if (networkCall.isCanceled()) {
+                    Log.d(TAG, "🛑 Carga del catálogo '" + catalogKey + "' cancelada");
+                    return;
+                }
+                Log.e(TAG, "❌ Error de conexión al refrescar catálogo '" + catalogKey + "'", e);
+                callback.onCatalogFailure(e);
+            });
+        }
+    }
+
+    // ========================================
+    // ✅ NUEVO: SESIÓN
+    // ========================================
+
+    /**
+     * Guarda el catálogo en el almacén solo si no se cerró sesión desde que empezó la carga.
+     *
+     * @return la proyección, o null si la carga es de una sesión anterior
+     */
+    private List<Song> putCatalog(String catalogKey, List<Song> songs, boolean fromNetwork, int loadSession) {
+        synchronized (store) {
+            if (loadSession != session.get()) return null;
+            return store.putCatalog(catalogKey, songs, fromNetwork);
+        }
+    }
+
+    private List<Song> internAll(List<Song> songs, int loadSession) {
+        synchronized (store) {
+            if (loadSession != session.get()) return null;
+            return store.internAll(songs);
+        }
+    }
+
+    private void persist(String catalogKey, List<Song> songs, int loadSession) {
+        if (catalogCache == null) return;
+        // Mismo hilo que el borrado de clearCache(): o se descarta aquí o el borrado va detrás
+        diskExecutor.execute(() -> {
+            if (loadSession == session.get()) {
+                catalogCache.write(catalogKey, songs);
+            }
+        });
+    }
+}
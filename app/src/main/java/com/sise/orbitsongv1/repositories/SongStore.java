@@ -0,0 +1,207 @@
+package com.sise.orbitsongv1.repositories;
+
+import android.os.SystemClock;
+
+import com.sise.orbitsongv1.models.Song;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Almacén único de canciones en memoria, compartido por todas las pantallas.
+ *
+ * - Deduplica por id: cada canción existe una sola vez; si llega una versión con el mismo
+ *   contenido se reutiliza la instancia ya guardada (así DiffUtil y Glide ven el mismo objeto).
+ * - Cada catálogo guarda su orden y se proyecta sobre el mapa (cada id con su versión más
+ *   reciente; las canciones sin id tal cual): "todas", "con preview" (derivada de "todas"
+ *   si es más reciente) y resultados de búsqueda.
+ * - Las proyecciones se cachean hasta el siguiente cambio: una pantalla puede comparar por
+ *   identidad (==) para saber si lo que muestra sigue al día.
+ *
+ * Es thread-safe: {@link SongRepository} interna y proyecta en sus hilos de fondo y entrega
+ * la proyección ya lista; los observadores se avisan en el hilo principal.
+ */
+public class SongStore {
+
+    // Tiempo durante el que un catálogo traído de la red se sirve sin volver a pedirlo
+    private static final long FRESH_FOR_MS = 5 * 60 * 1000L;
+
+    public interface Observer {
+        void onCatalogChanged(String catalogKey);
+    }
+
+    private final Map<String, Song> songsById = new HashMap<>();
+    private final Map<String, List<Song>> catalogs = new HashMap<>();
+    private final Map<String, Long> fetchedAt = new HashMap<>();   // Solo catálogos de la red
+    private final Map<String, List<Song>> projections = new HashMap<>();
+    private final List<Observer> observers = new CopyOnWriteArrayList<>();
+
+    SongStore() {
+    }
+
+    // ========================================
+    // CANCIONES
+    // ========================================
+
+    /**
+     * Devuelve la instancia canónica de la canción. Las canciones sin id no se deduplican.
+     */
+    synchronized Song intern(Song song) {
+        if (song == null || song.getId() == null) return song;
+
+        Song existing = songsById.get(song.getId());
+        if (existing != null && existing.hasSameContent(song)) {
+            return existing;
+        }
+        songsById.put(song.getId(), song);
+        if (existing != null) {
+            // Cambió el contenido: las proyecciones que la incluyan deben reconstruirse
+            projections.clear();
+        }
+        return song;
+    }
+
+    synchronized List<Song> internAll(List<Song> songs) {
+        List<Song> interned = new ArrayList<>(songs.size());
+        for (Song song : songs) {
+            interned.add(intern(song));
+        }
+        return interned;
+    }
+
+    public synchronized Song getById(String id) {
+        return id != null ? songsById.get(id) : null;
+    }
+
+    // ========================================
+    // CATÁLOGOS
+    // ========================================
+
+    /**
+     * Sustituye un catálogo y devuelve su proyección. Una copia del disco no pisa un
+     * catálogo que ya llegó de la red.
+     *
+     * @param fromNetwork false si viene del disco: se muestra, pero no evita pedirlo a la red
+     */
+    synchronized List<Song> putCatalog(String catalogKey, List<Song> songs, boolean fromNetwork) {
+        if (!fromNetwork && fetchedAt.containsKey(catalogKey)) {
+            return getCatalog(catalogKey);
+        }
+
+        List<Song> entries = new ArrayList<>(songs.size());
+        for (Song song : songs) {
+            Song canonical = intern(song);
+            if (canonical != null) {
+                entries.add(canonical);
+            }
+        }
+        catalogs.put(catalogKey, entries);
+        if (fromNetwork) {
+            fetchedAt.put(catalogKey, SystemClock.elapsedRealtime());
+        }
+        projections.clear();
+        return getCatalog(catalogKey);
+    }
+
+    /**
+     * @return la proyección del catálogo, o null si aún no se ha cargado
+     */
+    public synchronized List<Song> getCatalog(String catalogKey) {
+        List<Song> cached = projections.get(catalogKey);
+        if (cached != null) return cached;
+
+        List<Song> projection;
+        if (SongRepository.CATALOG_WITH_PREVIEW.equals(catalogKey) && prefersAllForPreview()) {
+            projection = filterWithPreview(resolve(catalogs.get(SongRepository.CATALOG_ALL)));
+        } else {
+            List<Song> entries = catalogs.get(catalogKey);
+            if (entries == null) return null;
+            projection = resolve(entries);
+        }
+
+        projection = Collections.unmodifiableList(projection);
+        projections.put(catalogKey, projection);
+        return projection;
+    }
+
+    /**
+     * True si el catálogo (o "todas", para "con preview") se trajo de la red hace poco.
+     */
+    synchronized boolean isFresh(String catalogKey) {
+        if (isFetchedRecently(catalogKey)) return true;
+        return SongRepository.CATALOG_WITH_PREVIEW.equals(catalogKey)
+                && isFetchedRecently(SongRepository.CATALOG_ALL);
+    }
+
+    synchronized void clear() {
+        songsById.clear();
+        catalogs.clear();
+        fetchedAt.clear();
+        projections.clear();
+    }
+
+    // ========================================
+    // OBSERVADORES
+    // ========================================
+
+    public void addObserver(Observer observer) {
+        if (observer != null && !observers.contains(observer)) {
+            observers.add(observer);
+        }
+    }
+
+    public void removeObserver(Observer observer) {
+        observers.remove(observer);
+    }
+
+    void notifyChanged(String catalogKey) {
+        for (Observer observer : observers) {
+            observer.onCatalogChanged(catalogKey);
+        }
+    }
+
+    // ========================================
+    // UTILIDADES
+    // ========================================
+
+    // "Con preview" se deriva de "todas" cuando esta es al menos igual de reciente
+    private boolean prefersAllForPreview() {
+        if (!catalogs.containsKey(SongRepository.CATALOG_ALL)) return false;
+        if (!catalogs.containsKey(SongRepository.CATALOG_WITH_PREVIEW)) return true;
+        return fetchedAtOf(SongRepository.CATALOG_ALL) >= fetchedAtOf(SongRepository.CATALOG_WITH_PREVIEW);
+    }
+
+    private boolean isFetchedRecently(String catalogKey) {
+        Long at = fetchedAt.get(catalogKey);
+        return at != null && SystemClock.elapsedRealtime() - at < FRESH_FOR_MS;
+    }
+
+    private long fetchedAtOf(String catalogKey) {
+        Long at = fetchedAt.get(catalogKey);
+        return at != null ? at : 0L;
+    }
+
+    // Cada canción con id se sustituye por su versión más reciente; las que no tienen id se quedan
+    private List<Song> resolve(List<Song> entries) {
+        List<Song> songs = new ArrayList<>(entries.size());
+        for (Song entry : entries) {
+            Song latest = entry.getId() != null ? songsById.get(entry.getId()) : null;
+            songs.add(latest != null ? latest : entry);
+        }
+        return songs;
+    }
+
+    private static List<Song> filterWithPreview(List<Song> songs) {
+        List<Song> withPreview = new ArrayList<>();
+        for (Song song : songs) {
+            if (song.hasPreview()) {
+                withPreview.add(song);
+            }
+        }
+        return withPreview;
+    }
+}
@@ -8,6 +8,7 @@ import com.sise.orbitsongv1.models.SpotifySearchResponse;
 
 import java.util.List;
 
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.Body;
 import retrofit2.http.GET;
@@ -15,7 +16,12 @@ import retrofit2.http.Header;
 import retrofit2.http.Headers;
 import retrofit2.http.POST;
 import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 
+/**
+ * Cada endpoint autenticado tiene una variante sin @Header("Authorization"): la cabecera
+ * la añade el interceptor de RetrofitClient a partir de {@link AuthTokenHolder}.
+ */
 public interface ApiService {
 
     // ===============================================
@@ -41,6 +47,10 @@ public interface ApiService {
     @Headers("Content-Type: application/json")
     Call<List<Song>> getSongs(@Header("Authorization") String authToken);
 
+    @GET("api/canciones")
+    @Headers("Content-Type: application/json")
+    Call<List<Song>> getSongs();
+
     /**
      * 🎵 PRIORIDAD: Obtener solo canciones CON preview
      */
@@ -48,6 +58,10 @@ public interface ApiService {
     @Headers("Content-Type: application/json")
     Call<List<Song>> getSongsWithPreview(@Header("Authorization") String authToken);
 
+    @GET("api/canciones/con-preview")
+    @Headers("Content-Type: application/json")
+    Call<List<Song>> getSongsWithPreview();
+
     /**
      * 📚 Obtener TODAS las canciones sin filtros (incluso sin preview)
      */
@@ -55,6 +69,25 @@ public interface ApiService {
     @Headers("Content-Type: application/json")
     Call<List<Song>> getAllSongs(@Header("Authorization") String authToken);
 
+    @GET("api/canciones/todas")
+    @Headers("Content-Type: application/json")
+    Call<List<Song>> getAllSongs();
+
+    /**
+     * ✅ NUEVO: Variantes sin convertir: el cuerpo se lee por partes con
+     * SongListStreamDecoder para mostrar la lista mientras sigue llegando.
+     * cacheControl: "no-cache" para saltarse la copia de la caché HTTP; null para omitirla
+     */
+    @Streaming
+    @GET("api/canciones/todas")
+    @Headers("Content-Type: application/json")
+    Call<ResponseBody> streamAllSongs(@Header("Cache-Control") String cacheControl);
+
+    @Streaming
+    @GET("api/canciones/con-preview")
+    @Headers("Content-Type: application/json")
+    Call<ResponseBody> streamSongsWithPreview(@Header("Cache-Control") String cacheControl);
+
     // ===============================================
     // ENDPOINTS DE BÚSQUEDA EN BASE DE DATOS
     // ===============================================
@@ -69,6 +102,10 @@ public interface ApiService {
             @Query("nombre") String nombre
     );
 
+    @GET("api/canciones/buscar/nombre")
+    @Headers("Content-Type: application/json")
+    Call<List<Song>> searchSongsByName(@Query("nombre") String nombre);
+
     /**
      * 🎵 PRIORIDAD: Buscar canciones por nombre CON preview
      */
@@ -79,6 +116,10 @@ public interface ApiService {
             @Query("nombre") String nombre
     );
 
+    @GET("api/canciones/buscar/nombre/con-preview")
+    @Headers("Content-Type: application/json")
+    Call<List<Song>> searchSongsByNameWithPreview(@Query("nombre") String nombre);
+
     @GET("api/canciones/buscar/artista")
     @Headers("Content-Type: application/json")
     Call<List<Song>> searchSongsByArtist(
@@ -86,6 +127,10 @@ public interface ApiService {
             @Query("artista") String artista
     );
 
+    @GET("api/canciones/buscar/artista")
+    @Headers("Content-Type: application/json")
+    Call<List<Song>> searchSongsByArtist(@Query("artista") String artista);
+
     @GET("api/canciones/buscar/album")
     @Headers("Content-Type: application/json")
     Call<List<Song>> searchSongsByAlbum(
@@ -93,6 +138,10 @@ public interface ApiService {
             @Query("album") String album
     );
 
+    @GET("api/canciones/buscar/album")
+    @Headers("Content-Type: application/json")
+    Call<List<Song>> searchSongsByAlbum(@Query("album") String album);
+
     // ===============================================
     // ENDPOINTS DE SPOTIFY - BÚSQUEDA EN TIEMPO REAL
     // ===============================================
@@ -107,6 +156,10 @@ public interface ApiService {
             @Query("query") String searchTerm
     );
 
+    @GET("api/spotify/buscar-tiempo-real")
+    @Headers("Content-Type: application/json")
+    Call<SpotifySearchResponse> searchSpotifyRealTime(@Query("query") String searchTerm);
+
     /**
      * 🎵 PRIORIDAD: Buscar canciones CON preview en tiempo real
      */
@@ -117,6 +170,10 @@ public interface ApiService {
             @Query("query") String searchTerm
     );
 
+    @GET("api/spotify/buscar-tiempo-real/con-preview")
+    @Headers("Content-Type: application/json")
+    Call<SpotifySearchResponse> searchSpotifyRealTimeWithPreview(@Query("query") String searchTerm);
+
     /**
      * 🎯 Obtener recomendaciones populares desde Spotify
      */
@@ -126,6 +183,10 @@ public interface ApiService {
             @Header("Authorization") String authToken
     );
 
+    @GET("api/spotify/recomendaciones")
+    @Headers("Content-Type: application/json")
+    Call<SpotifySearchResponse> getSpotifyRecommendations();
+
     // ===============================================
     // ENDPOINTS DE SPOTIFY - CARGAR Y GUARDAR EN BD
     // ===============================================
@@ -137,6 +198,10 @@ public interface ApiService {
     @Headers("Content-Type: application/json")
     Call<SpotifySearchResponse> loadAllSongs(@Header("Authorization") String authToken);
 
+    @POST("api/spotify/canciones/cargar-todas")
+    @Headers("Content-Type: application/json")
+    Call<SpotifySearchResponse> loadAllSongs();
+
     /**
      * 🎵 CLAVE: Cargar canciones CON preview garantizado desde Spotify
      */
@@ -144,6 +209,10 @@ public interface ApiService {
     @Headers("Content-Type: application/json")
     Call<SpotifySearchResponse> loadSongsWithPreview(@Header("Authorization") String authToken);
 
+    @POST("api/spotify/cargar-con-preview-garantizado")
+    @Headers("Content-Type: application/json")
+    Call<SpotifySearchResponse> loadSongsWithPreview();
+
     /**
      * 🎧 ALTERNATIVO: Cargar preview público (para testing)
      */
@@ -176,6 +245,10 @@ public interface ApiService {
     @Headers("Content-Type: application/json")
     Call<Object> getPreviewStats(@Header("Authorization") String authToken);
 
+    @GET("api/spotify/estadisticas-preview")
+    @Headers("Content-Type: application/json")
+    Call<Object> getPreviewStats();
+
     /**
      * 🧪 Debug de artista específico
      */
@@ -0,0 +1,62 @@
+package com.sise.orbitsongv1.services;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.sise.orbitsongv1.utils.Constants;
+
+/**
+ * Token de sesión en memoria.
+ *
+ * Se carga de SharedPreferences una sola vez al arrancar la app y se actualiza al iniciar
+ * o cerrar sesión. La cabecera "Bearer ..." se construye al guardar el token, así el
+ * interceptor de autenticación solo lee un campo por petición.
+ */
+public class AuthTokenHolder {
+    private static final String TAG = "AuthTokenHolder";
+
+    private static AuthTokenHolder instance;
+
+    private volatile String authorizationHeader;
+
+    private AuthTokenHolder() {
+        // Constructor privado - usar getInstance()
+    }
+
+    public static synchronized AuthTokenHolder getInstance() {
+        if (instance == null) {
+            instance = new AuthTokenHolder();
+        }
+        return instance;
+    }
+
+    public void initialize(Context context) {
+        SharedPreferences prefs = context.getApplicationContext()
+                .getSharedPreferences(Constants.PREFS_NAME, Context.MODE_PRIVATE);
+        setToken(prefs.getString(Constants.TOKEN_KEY, null));
+        Log.d(TAG, hasToken() ? "✅ Token de sesión cargado" : "ℹ️ Sin sesión guardada");
+    }
+
+    /**
+     * @param token token JWT sin el prefijo "Bearer "
+     */
+    public void setToken(String token) {
+        authorizationHeader = token != null && !token.isEmpty() ? "Bearer " + token : null;
+    }
+
+    public void clear() {
+        authorizationHeader = null;
+    }
+
+    public boolean hasToken() {
+        return authorizationHeader != null;
+    }
+
+    /**
+     * @return valor listo para la cabecera Authorization, o null si no hay sesión
+     */
+    public String getAuthorizationHeader() {
+        return authorizationHeader;
+    }
+}
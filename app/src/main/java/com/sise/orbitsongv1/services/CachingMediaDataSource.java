@@ -0,0 +1,169 @@
+package com.sise.orbitsongv1.services;
+
+import android.media.MediaDataSource;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Fuente de audio que descarga el clip una sola vez y lo escribe en disco mientras se
+ * reproduce. El MediaPlayer lee del archivo parcial; si pide bytes que aún no han llegado,
+ * readAt() espera a la descarga.
+ *
+ * Si el reproductor la cierra antes de terminar (salto de canción, reset...) la descarga
+ * se cancela y el archivo parcial se descarta.
+ */
+class CachingMediaDataSource extends MediaDataSource {
+    private static final String TAG = "CachingMediaDataSource";
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final PreviewAudioCache cache;
+    private final String key;
+    private final File partial;
+    private final RandomAccessFile file;
+    private final Call call;
+
+    // Todo lo siguiente se protege con 'lock'
+    private final Object lock = new Object();
+    private long available = 0;
+    private long totalSize = -1;
+    private boolean headersReceived = false;
+    private boolean finished = false;
+    private boolean closed = false;
+    private IOException failure;
+
+    CachingMediaDataSource(PreviewAudioCache cache, OkHttpClient client, String url, String key) throws IOException {
+        this.cache = cache;
+        this.key = key;
+        this.partial = cache.partialFileFor(key);
+        this.file = new RandomAccessFile(partial, "rw");
+        this.file.setLength(0);
+        this.call = client.newCall(new Request.Builder().url(url).build());
+
+        Thread downloader = new Thread(this::download, "PreviewDownload");
+        downloader.setDaemon(true);
+        downloader.start();
+    }
+
+    // ========================================
+    // DESCARGA (hilo propio)
+    // ========================================
+
+    private void download() {
+        boolean complete = false;
+
+        try (Response response = call.execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new IOException("HTTP " + response.code());
+            }
+
+            synchronized (lock) {
+                totalSize = body.contentLength();
+                headersReceived = true;
+                lock.notifyAll();
+            }
+
+            InputStream in = body.byteStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                synchronized (lock) {
+                    if (closed) return;
+                    file.seek(available);
+                    file.write(buffer, 0, read);
+                    available += read;
+                    lock.notifyAll();
+                }
+            }
+
+            synchronized (lock) {
+                complete = totalSize < 0 || available == totalSize;
+                if (totalSize < 0) {
+                    totalSize = available;
+                }
+                finished = true;
+                lock.notifyAll();
+            }
+
+        } catch (IOException e) {
+            synchronized (lock) {
+                if (!closed) {
+                    Log.w(TAG, "⚠️ Descarga de preview interrumpida: " + e.getMessage());
+                }
+                failure = e;
+                headersReceived = true;
+                lock.notifyAll();
+            }
+        } finally {
+            cache.onDownloadFinished(key, partial, complete);
+        }
+    }
+
+    // ========================================
+    // MediaDataSource (hilo del reproductor)
+    // ========================================
+
+    @Override
+    public int readAt(long position, byte[] buffer, int offset, int size) throws IOException {
+        synchronized (lock) {
+            while (position >= available && !finished && failure == null && !closed) {
+                awaitProgress();
+            }
+
+            if (closed) return -1;
+            if (position >= available) {
+                if (failure != null) throw failure;
+                return -1; // Fin del clip
+            }
+
+            int toRead = (int) Math.min(size, available - position);
+            file.seek(position);
+            return file.read(buffer, offset, toRead);
+        }
+    }
+
+    @Override
+    public long getSize() throws IOException {
+        synchronized (lock) {
+            while (!headersReceived && !closed) {
+                awaitProgress();
+            }
+            if (failure != null && available == 0) throw failure;
+            return totalSize; // -1 = desconocido (respuesta sin Content-Length)
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        boolean cancel;
+        synchronized (lock) {
+            if (closed) return;
+            closed = true;
+            cancel = !finished;
+            lock.notifyAll();
+            file.close();
+        }
+        if (cancel) {
+            call.cancel();
+        }
+    }
+
+    private void awaitProgress() throws IOException {
+        try {
+            lock.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Lectura de preview interrumpida", e);
+        }
+    }
+}
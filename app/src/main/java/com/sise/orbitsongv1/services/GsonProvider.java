@@ -0,0 +1,55 @@
+package com.sise.orbitsongv1.services;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.sise.orbitsongv1.models.ArtistNamePool;
+import com.sise.orbitsongv1.models.ArtistasTypeAdapter;
+import com.sise.orbitsongv1.models.LoginResponse;
+import com.sise.orbitsongv1.models.LoginResponseTypeAdapter;
+import com.sise.orbitsongv1.models.Song;
+import com.sise.orbitsongv1.models.SongTypeAdapter;
+import com.sise.orbitsongv1.models.SpotifySearchResponse;
+import com.sise.orbitsongv1.models.SpotifySearchResponseTypeAdapter;
+import com.sise.orbitsongv1.models.User;
+import com.sise.orbitsongv1.models.UserTypeAdapter;
+
+/**
+ * Instancia única de Gson para toda la app (Retrofit, catálogo en disco y lectura en streaming).
+ *
+ * Los modelos de las respuestas calientes se leen con TypeAdapters escritos a mano: sin
+ * reflexión por campo ni objetos intermedios, y sin depender de que R8 conserve los nombres
+ * de los campos. Gson es inmutable y thread-safe, así que se comparte sin sincronizar.
+ */
+public final class GsonProvider {
+
+    private static final Gson GSON = create(new ArtistasTypeAdapter());
+
+    private GsonProvider() {
+    }
+
+    public static Gson getGson() {
+        return GSON;
+    }
+
+    /**
+     * ✅ NUEVO: Gson para leer un catálogo completo: los nombres de artista repetidos se
+     * comparten a través de un {@link ArtistNamePool} propio. Uno por lectura, desde un solo hilo.
+     */
+    public static Gson newCatalogGson() {
+        return create(new ArtistasTypeAdapter(new ArtistNamePool()));
+    }
+
+    private static Gson create(ArtistasTypeAdapter artistasAdapter) {
+        SongTypeAdapter songAdapter = new SongTypeAdapter(artistasAdapter);
+        UserTypeAdapter userAdapter = new UserTypeAdapter();
+
+        return new GsonBuilder()
+                .registerTypeAdapter(Song.class, songAdapter.nullSafe())
+                .registerTypeAdapter(SpotifySearchResponse.class,
+                        new SpotifySearchResponseTypeAdapter(songAdapter).nullSafe())
+                .registerTypeAdapter(User.class, userAdapter.nullSafe())
+                .registerTypeAdapter(LoginResponse.class,
+                        new LoginResponseTypeAdapter(userAdapter).nullSafe())
+                .create();
+    }
+}
@@ -0,0 +1,268 @@
+package com.sise.orbitsongv1.services;
+
+import android.util.Log;
+
+import com.sise.orbitsongv1.utils.Constants;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Cache;
+import okhttp3.CacheControl;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Okio;
+
+/**
+ * Política de caché HTTP para los endpoints de catálogo.
+ *
+ * - Las respuestas de catálogo se guardan siempre como "private, max-age=0" para que cada uso
+ *   se revalide con If-None-Match / If-Modified-Since (OkHttp envía ETag y Last-Modified
+ *   automáticamente) y un catálogo sin cambios cueste un 304 en vez del cuerpo completo.
+ * - Stale-while-revalidate: dentro de la ventana configurada se devuelve la copia
+ *   guardada al instante y se revalida en segundo plano (salvo peticiones "no-cache",
+ *   p. ej. una recarga forzada por el usuario).
+ * - Stale-if-error: si la red falla se sirve la última copia guardada.
+ * - Las respuestas dependen del usuario: al cerrar sesión se vacía la caché ({@link #evictAll()}).
+ */
+public class HttpCachePolicy {
+    private static final String TAG = "HttpCachePolicy";
+
+    private static final Set<String> CATALOG_PATHS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "/api/canciones",
+            "/api/canciones/con-preview",
+            "/api/canciones/todas",
+            "/api/spotify/recomendaciones"
+    )));
+
+    private final Cache cache;
+    private OkHttpClient client;
+
+    // Revalidaciones en segundo plano en curso (una por URL)
+    private final Set<String> pendingRevalidations = ConcurrentHashMap.newKeySet();
+
+    // Contadores propios (los de OkHttp se leen directamente de Cache)
+    private final AtomicLong notModifiedCount = new AtomicLong();
+    private final AtomicLong staleServedCount = new AtomicLong();
+    private final AtomicLong staleOnErrorCount = new AtomicLong();
+
+    public HttpCachePolicy(Cache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * El cliente se conoce después de construirlo; se usa para lanzar las revalidaciones.
+     */
+    void attach(OkHttpClient client) {
+        this.client = client;
+    }
+
+    public static boolean isCatalogRequest(Request request) {
+        return "GET".equals(request.method()) && CATALOG_PATHS.contains(request.url().encodedPath());
+    }
+
+    // ========================================
+    // INTERCEPTORES
+    // ========================================
+
+    /**
+     * Interceptor de aplicación: stale-while-revalidate y stale-if-error.
+     */
+    public Interceptor applicationInterceptor() {
+        return chain -> {
+            Request request = chain.request();
+            if (!isCatalogRequest(request) || request.tag(HttpCachePolicy.class) != null) {
+                return chain.proceed(request);
+            }
+
+            // 1️⃣ Copia guardada dentro de la ventana stale-while-revalidate
+            if (request.cacheControl().noCache()) {
+                return proceedOrStale(chain, request);
+            }
+            Request cachedOnly = request.newBuilder()
+                    .cacheControl(new CacheControl.Builder()
+                            .onlyIfCached()
+                            .maxStale(Constants.HTTP_STALE_WHILE_REVALIDATE_SECONDS, TimeUnit.SECONDS)
+                            .build())
+                    .build();
+            Response cached = chain.proceed(cachedOnly);
+            if (cached.isSuccessful()) {
+                staleServedCount.incrementAndGet();
+                Log.d(TAG, "⚡ Catálogo servido desde caché HTTP, revalidando: " + request.url().encodedPath());
+                revalidateInBackground(request);
+                return cached;
+            }
+            cached.close();
+
+            return proceedOrStale(chain, request);
+        };
+    }
+
+    // 2️⃣ Red (condicional si hay copia guardada) y 3️⃣ stale-if-error
+    private Response proceedOrStale(Interceptor.Chain chain, Request request) throws IOException {
+        try {
+            return chain.proceed(request);
+        } catch (IOException networkError) {
+            Request staleRequest = request.newBuilder()
+                    .cacheControl(new CacheControl.Builder()
+                            .onlyIfCached()
+                            .maxStale(Constants.HTTP_STALE_IF_ERROR_SECONDS, TimeUnit.SECONDS)
+                            .build())
+                    .build();
+            Response stale = chain.proceed(staleRequest);
+            if (stale.isSuccessful()) {
+                staleOnErrorCount.incrementAndGet();
+                Log.w(TAG, "📴 Red no disponible, sirviendo catálogo guardado: " + request.url().encodedPath());
+                return stale;
+            }
+            stale.close();
+            throw networkError;
+        }
+    }
+
+    /**
+     * Interceptor de red: hace cacheables las respuestas de catálogo y cuenta los 304.
+     */
+    public Interceptor networkInterceptor() {
+        return chain -> {
+            Request request = chain.request();
+            Response response = chain.proceed(request);
+
+            if (response.code() == 304) {
+                notModifiedCount.incrementAndGet();
+            }
+
+            if (!isCatalogRequest(request) || response.header("Cache-Control") != null) {
+                // Respetar lo que el backend indique explícitamente
+                return response;
+            }
+
+            return response.newBuilder()
+                    .removeHeader("Pragma")
+                    .header("Cache-Control", "private, max-age=0")
+                    .build();
+        };
+    }
+
+    private void revalidateInBackground(Request request) {
+        if (client == null) return;
+
+        String url = request.url().toString();
+        if (!pendingRevalidations.add(url)) return;
+
+        Request revalidation = request.newBuilder()
+                // no-cache = petición condicional contra la copia guardada
+                .cacheControl(new CacheControl.Builder().noCache().build())
+                .tag(HttpCachePolicy.class, this)
+                .build();
+
+        client.newCall(revalidation).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                pendingRevalidations.remove(url);
+                if (call.isCanceled()) {
+                    Log.d(TAG, "🛑 Revalidación cancelada: " + request.url().encodedPath());
+                    return;
+                }
+                Log.w(TAG, "⚠️ Revalidación fallida: " + request.url().encodedPath(), e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                pendingRevalidations.remove(url);
+                // Consumir el cuerpo para que OkHttp termine de escribir la caché
+                try (Response ignored = response) {
+                    if (response.body() != null) {
+                        response.body().source().readAll(Okio.blackhole());
+                    }
+                } catch (IOException e) {
+                    Log.w(TAG, "⚠️ Error leyendo revalidación", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * ✅ NUEVO: Borra todas las respuestas guardadas para que la siguiente sesión no vea el
+     * catálogo del usuario anterior. Bloqueante (E/S de disco): llamar desde un hilo de fondo.
+     */
+    public void evictAll() {
+        if (cache == null) return;
+        // Una revalidación lanzada antes volvería a guardar la respuesta del usuario anterior
+        cancelRevalidations();
+        try {
+            cache.evictAll();
+            Log.d(TAG, "🧹 Caché HTTP vaciada");
+        } catch (IOException e) {
+            Log.w(TAG, "⚠️ No se pudo vaciar la caché HTTP", e);
+        }
+    }
+
+    private void cancelRevalidations() {
+        if (client == null) return;
+        Dispatcher dispatcher = client.dispatcher();
+        for (Call call : dispatcher.queuedCalls()) {
+            cancelIfRevalidation(call);
+        }
+        for (Call call : dispatcher.runningCalls()) {
+            cancelIfRevalidation(call);
+        }
+    }
+
+    private void cancelIfRevalidation(Call call) {
+        if (call.request().tag(HttpCachePolicy.class) == this) {
+            call.cancel();
+        }
+    }
+
+    // ========================================
+    // ESTADÍSTICAS
+    // ========================================
+
+    public String getStatsSummary() {
+        if (cache == null) {
+            return "Caché HTTP deshabilitada";
+        }
+
+        long size;
+        try {
+            size = cache.size();
+        } catch (IOException e) {
+            size = -1;
+        }
+
+        return String.format(java.util.Locale.US,
+                "📦 HTTP cache: requests=%d, hits=%d, network=%d, 304=%d, swr=%d, stale-on-error=%d, size=%dKB/%dKB",
+                cache.requestCount(),
+                cache.hitCount(),
+                cache.networkCount(),
+                notModifiedCount.get(),
+                staleServedCount.get(),
+                staleOnErrorCount.get(),
+                size / 1024,
+                cache.maxSize() / 1024);
+    }
+
+    public long getHitCount() {
+        return cache != null ? cache.hitCount() : 0;
+    }
+
+    public long getMissCount() {
+        return cache != null ? cache.networkCount() : 0;
+    }
+
+    public long getNotModifiedCount() {
+        return notModifiedCount.get();
+    }
+}
@@ -0,0 +1,87 @@
+package com.sise.orbitsongv1.services;
+
+import android.util.Log;
+
+import com.sise.orbitsongv1.BuildConfig;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.logging.HttpLoggingInterceptor;
+
+/**
+ * Decide cuánto se registra de cada petición HTTP según el tipo de build y el endpoint.
+ *
+ * Nunca se registran cuerpos: en su lugar cada petición muestreada deja una línea de
+ * tiempos (DNS, conexión, TTFB, bytes, parseo) a través de {@link HttpTimingEventListener}.
+ */
+public class HttpLogPolicy {
+    static final String TAG = "OrbitSongHttp";
+
+    public enum Verbosity {
+        NONE,     // Sin registro (p. ej. endpoints con credenciales)
+        TIMING,   // Línea estructurada de tiempos
+        HEADERS   // Tiempos + cabeceras (solo builds debug)
+    }
+
+    private final boolean debugBuild;
+    private final double sampleRate;
+
+    public HttpLogPolicy(boolean debugBuild, double sampleRate) {
+        this.debugBuild = debugBuild;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Política según el build actual (ver buildConfigField en app/build.gradle).
+     */
+    public static HttpLogPolicy forCurrentBuild() {
+        return new HttpLogPolicy(BuildConfig.DEBUG, BuildConfig.HTTP_LOG_SAMPLE_RATE);
+    }
+
+    public Verbosity verbosityFor(Request request) {
+        String path = request.url().encodedPath();
+
+        // 🔐 Login y registro llevan credenciales y tokens
+        if (path.startsWith("/api/auth/")) {
+            return Verbosity.NONE;
+        }
+
+        // 🧪 Endpoints de diagnóstico: cabeceras completas en debug
+        if (debugBuild && (path.startsWith("/api/spotify/debug")
+                || path.startsWith("/api/spotify/test")
+                || path.startsWith("/api/spotify/verify")
+                || path.equals("/api/spotify/health"))) {
+            return Verbosity.HEADERS;
+        }
+
+        return Verbosity.TIMING;
+    }
+
+    /**
+     * Se decide una sola vez por llamada, al crear su EventListener.
+     */
+    public boolean shouldSample(Request request) {
+        if (verbosityFor(request) == Verbosity.NONE) {
+            return false;
+        }
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * Interceptor que solo registra cabeceras para los endpoints con verbosidad HEADERS.
+     */
+    public Interceptor headersInterceptor() {
+        HttpLoggingInterceptor headersLogger = new HttpLoggingInterceptor(message -> Log.d(TAG, message));
+        headersLogger.setLevel(HttpLoggingInterceptor.Level.HEADERS);
+        headersLogger.redactHeader("Authorization");
+
+        return chain -> {
+            if (verbosityFor(chain.request()) == Verbosity.HEADERS) {
+                return headersLogger.intercept(chain);
+            }
+            return chain.proceed(chain.request());
+        };
+    }
+}
@@ -0,0 +1,242 @@
+package com.sise.orbitsongv1.services;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.Locale;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+/**
+ * Mide una llamada HTTP muestreada y deja una única línea estructurada en logcat:
+ *
+ * ⏱️ GET /api/canciones/todas 200 cache=miss dns=12ms connect=40ms ttfb=180ms body=523412B parse=95ms total=310ms
+ *
+ * El tiempo de parseo lo aporta {@link TimedConverterFactory}: como Retrofit convierte el
+ * cuerpo en el mismo hilo que leyó las cabeceras, el listener se publica en un ThreadLocal
+ * y el conversor lo recoge.
+ */
+public class HttpTimingEventListener extends EventListener {
+
+    private static final ThreadLocal<HttpTimingEventListener> CURRENT = new ThreadLocal<>();
+
+    private final String method;
+    private final String path;
+
+    private long callStartNs;
+    private long dnsStartNs;
+    private long dnsMs = -1;
+    private long connectStartNs;
+    private long connectMs = -1;
+    private long ttfbMs = -1;
+    private long bodyBytes = -1;
+    private long parseMs = -1;
+    private int statusCode = -1;
+    private String cacheResult = "none";
+    private boolean parsePending = false;
+    private boolean logged = false;
+
+    private HttpTimingEventListener(Call call) {
+        this.method = call.request().method();
+        this.path = call.request().url().encodedPath();
+    }
+
+    /**
+     * Factory que aplica el muestreo de la política: las llamadas no muestreadas no miden nada.
+     */
+    public static EventListener.Factory factory(HttpLogPolicy policy) {
+        return call -> policy.shouldSample(call.request())
+                ? new HttpTimingEventListener(call)
+                : EventListener.NONE;
+    }
+
+    /**
+     * Usado por el conversor: devuelve el listener de la respuesta que se va a parsear en este hilo.
+     */
+    static HttpTimingEventListener takeCurrent() {
+        HttpTimingEventListener current = CURRENT.get();
+        CURRENT.remove();
+        if (current != null) {
+            current.parsePending = true;
+        }
+        return current;
+    }
+
+    /**
+     * ✅ NUEVO: Tarea de parseo de un cuerpo leído sin conversor de Retrofit (streaming).
+     */
+    public interface ParseTask<T> {
+        T parse() throws IOException;
+    }
+
+    /**
+     * Mide el parseo igual que {@link TimedConverterFactory}, para los cuerpos que se leen a
+     * mano. Debe llamarse en el hilo que ejecutó la llamada (execute()), antes de leer el cuerpo.
+     */
+    public static <T> T timeParse(ParseTask<T> task) throws IOException {
+        HttpTimingEventListener timing = takeCurrent();
+        if (timing == null) {
+            return task.parse();
+        }
+
+        long start = System.nanoTime();
+        try {
+            return task.parse();
+        } finally {
+            timing.onParseFinished(System.nanoTime() - start);
+        }
+    }
+
+    void onParseFinished(long parseNanos) {
+        parseMs = parseNanos / 1_000_000;
+        parsePending = false;
+        logLine(null);
+    }
+
+    // ========================================
+    // EVENTOS DE OKHTTP
+    // ========================================
+
+    @Override
+    public void callStart(Call call) {
+        callStartNs = System.nanoTime();
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStartNs = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        dnsMs = elapsedMs(dnsStartNs);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStartNs = System.nanoTime();
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        connectMs = elapsedMs(connectStartNs);
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        ttfbMs = elapsedMs(callStartNs);
+    }
+
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+        statusCode = response.code();
+        publishForParse();
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        bodyBytes = byteCount;
+    }
+
+    @Override
+    public void cacheHit(Call call, Response cachedResponse) {
+        cacheResult = "hit";
+        statusCode = cachedResponse.code();
+        publishForParse();
+    }
+
+    @Override
+    public void cacheMiss(Call call) {
+        cacheResult = "miss";
+    }
+
+    @Override
+    public void cacheConditionalHit(Call call, Response cachedResponse) {
+        cacheResult = "304";
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        if (CURRENT.get() == this) {
+            if ("hit".equals(cacheResult)) {
+                // ✅ NUEVO: Con la respuesta de caché la llamada termina antes de parsear: el
+                // conversor (mismo hilo, justo después) recoge el listener y escribe la línea
+                return;
+            }
+            // Nadie va a parsear esta respuesta (error HTTP, cuerpo ignorado...)
+            CURRENT.remove();
+        }
+        if (!parsePending) {
+            logLine(null);
+        }
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+        parsePending = false;
+        logLine(ioe);
+    }
+
+    private void publishForParse() {
+        HttpTimingEventListener previous = CURRENT.get();
+        if (previous != null && previous != this) {
+            // Una respuesta de caché que nadie llegó a parsear: su línea sale sin parse
+            previous.logLine(null);
+        }
+        CURRENT.set(this);
+    }
+
+    // ========================================
+    // SALIDA
+    // ========================================
+
+    private void logLine(IOException error) {
+        if (logged) return;
+        logged = true;
+
+        StringBuilder line = new StringBuilder(160)
+                .append("⏱️ ").append(method).append(' ').append(path)
+                .append(' ').append(statusCode)
+                .append(" cache=").append(cacheResult);
+        appendMs(line, "dns", dnsMs);
+        appendMs(line, "connect", connectMs);
+        appendMs(line, "ttfb", ttfbMs);
+        if (bodyBytes >= 0) {
+            line.append(" body=").append(bodyBytes).append('B');
+        }
+        appendMs(line, "parse", parseMs);
+        appendMs(line, "total", elapsedMs(callStartNs));
+
+        if (error != null) {
+            line.append(" error=").append(error.getClass().getSimpleName());
+            Log.w(HttpLogPolicy.TAG, line.toString());
+        } else {
+            Log.i(HttpLogPolicy.TAG, line.toString());
+        }
+    }
+
+    private static void appendMs(StringBuilder line, String label, long value) {
+        if (value >= 0) {
+            line.append(' ').append(label).append('=').append(value).append("ms");
+        }
+    }
+
+    private static long elapsedMs(long startNs) {
+        return startNs > 0 ? (System.nanoTime() - startNs) / 1_000_000 : -1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "HttpTiming{%s %s}", method, path);
+    }
+}
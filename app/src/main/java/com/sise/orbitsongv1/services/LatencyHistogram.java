@@ -0,0 +1,93 @@
+package com.sise.orbitsongv1.services;
+
+/**
+ * Histograma de latencias con cubetas geométricas (cada una un 25% más ancha que la
+ * anterior, de 1 ms a ~2 min). Memoria fija sea cual sea el número de muestras; los
+ * percentiles se devuelven con el límite superior de su cubeta (error máximo ~25%).
+ */
+class LatencyHistogram {
+
+    private static final double GROWTH = 1.25;
+    private static final long MAX_TRACKED_MS = 120_000;
+    private static final long[] UPPER_BOUNDS = buildBounds();
+
+    private final long[] counts = new long[UPPER_BOUNDS.length];
+    private long total = 0;
+    private long sumMs = 0;
+    private long maxMs = 0;
+
+    private static long[] buildBounds() {
+        int size = 0;
+        for (double bound = 1; bound < MAX_TRACKED_MS; bound *= GROWTH) {
+            size++;
+        }
+        long[] bounds = new long[size + 1];
+        double bound = 1;
+        for (int i = 0; i < size; i++) {
+            bounds[i] = (long) Math.ceil(bound);
+            bound *= GROWTH;
+        }
+        bounds[size] = Long.MAX_VALUE;
+        return bounds;
+    }
+
+    synchronized void record(long valueMs) {
+        long value = Math.max(0, valueMs);
+        counts[bucketFor(value)]++;
+        total++;
+        sumMs += value;
+        maxMs = Math.max(maxMs, value);
+    }
+
+    synchronized long count() {
+        return total;
+    }
+
+    synchronized long mean() {
+        return total == 0 ? 0 : sumMs / total;
+    }
+
+    synchronized long max() {
+        return maxMs;
+    }
+
+    /**
+     * @param percentile entre 0 y 100 (p. ej. 95 para p95); -1 si no hay muestras
+     */
+    synchronized long percentile(double percentile) {
+        if (total == 0) return -1;
+
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                // El límite de la cubeta nunca debe superar el máximo real observado
+                return Math.min(UPPER_BOUNDS[i], maxMs);
+            }
+        }
+        return maxMs;
+    }
+
+    synchronized void clear() {
+        java.util.Arrays.fill(counts, 0);
+        total = 0;
+        sumMs = 0;
+        maxMs = 0;
+    }
+
+    private static int bucketFor(long value) {
+        // Búsqueda binaria del primer límite >= value
+        int low = 0;
+        int high = UPPER_BOUNDS.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (UPPER_BOUNDS[mid] >= value) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+}
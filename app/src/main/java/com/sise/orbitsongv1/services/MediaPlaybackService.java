@@ -0,0 +1,403 @@
+package com.sise.orbitsongv1.services;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ServiceInfo;
+import android.graphics.Bitmap;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.IBinder;
+import android.support.v4.media.MediaMetadataCompat;
+import android.support.v4.media.session.MediaSessionCompat;
+import android.support.v4.media.session.PlaybackStateCompat;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.ServiceCompat;
+import androidx.core.content.ContextCompat;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.request.target.CustomTarget;
+import com.bumptech.glide.request.transition.Transition;
+import com.sise.orbitsongv1.R;
+import com.sise.orbitsongv1.activities.HomeActivity;
+import com.sise.orbitsongv1.models.Song;
+
+/**
+ * Servicio en primer plano que aloja la reproducción.
+ *
+ * El motor sigue siendo {@link MusicPlayerService} (singleton usado por las activities); este
+ * servicio mantiene vivo el proceso mientras suena, publica una MediaSession (auriculares,
+ * pantalla de bloqueo, Bluetooth) y muestra la notificación multimedia con sus controles.
+ *
+ * - Reproduciendo: primer plano con notificación fija.
+ * - En pausa: sale de primer plano pero deja la notificación (se puede descartar).
+ * - Detenido, terminado o con error: quita la notificación y se detiene.
+ */
+public class MediaPlaybackService extends Service implements MusicPlayerService.MusicPlayerListener {
+    private static final String TAG = "MediaPlaybackService";
+
+    private static final String CHANNEL_ID = "orbitsong_playback";
+    private static final int NOTIFICATION_ID = 1001;
+    private static final int ART_SIZE_PX = 256;
+
+    // Acciones de los botones de la notificación
+    private static final String ACTION_PLAY_PAUSE = "com.sise.orbitsongv1.action.PLAY_PAUSE";
+    private static final String ACTION_NEXT = "com.sise.orbitsongv1.action.NEXT";
+    private static final String ACTION_PREVIOUS = "com.sise.orbitsongv1.action.PREVIOUS";
+    private static final String ACTION_STOP = "com.sise.orbitsongv1.action.STOP";
+
+    private static final long SESSION_ACTIONS = PlaybackStateCompat.ACTION_PLAY
+            | PlaybackStateCompat.ACTION_PAUSE
+            | PlaybackStateCompat.ACTION_PLAY_PAUSE
+            | PlaybackStateCompat.ACTION_SKIP_TO_NEXT
+            | PlaybackStateCompat.ACTION_SKIP_TO_PREVIOUS
+            | PlaybackStateCompat.ACTION_STOP
+            | PlaybackStateCompat.ACTION_SEEK_TO;
+
+    private static boolean running = false;
+
+    private MusicPlayerService musicPlayer;
+    private MediaSessionCompat mediaSession;
+    private NotificationManager notificationManager;
+    private boolean inForeground = false;
+
+    // Carátula de la canción actual (se carga con Glide y se reutiliza en cada notificación)
+    private Song artSong;
+    private Bitmap albumArt;
+
+    /**
+     * Arranca el servicio si aún no está corriendo. El motor lo llama al empezar a sonar;
+     * si ya está corriendo, el propio servicio vuelve a primer plano al recibir el evento.
+     */
+    static void start(Context context) {
+        if (running) return;
+
+        try {
+            ContextCompat.startForegroundService(context, new Intent(context, MediaPlaybackService.class));
+        } catch (IllegalStateException e) {
+            // Android 12+: no se permite iniciarlo con la app en segundo plano
+            Log.w(TAG, "⚠️ No se pudo iniciar el servicio de reproducción", e);
+        }
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        running = true;
+
+        notificationManager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+        createNotificationChannel();
+
+        mediaSession = new MediaSessionCompat(this, TAG);
+        mediaSession.setCallback(new SessionCallback());
+        mediaSession.setSessionActivity(buildContentIntent());
+
+        musicPlayer = MusicPlayerService.getInstance();
+        musicPlayer.initialize(this);
+        // Recibe de inmediato el estado actual en onPlaybackStateRestored
+        musicPlayer.addListener(this);
+
+        Log.d(TAG, "✅ Servicio de reproducción creado");
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        String action = intent != null ? intent.getAction() : null;
+
+        if (action == null) {
+            // Iniciado con startForegroundService(): hay que pasar a primer plano ya
+            enterForeground();
+            return START_NOT_STICKY;
+        }
+
+        Log.d(TAG, "🔘 Acción de notificación: " + action);
+        switch (action) {
+            case ACTION_PLAY_PAUSE:
+                if (musicPlayer.isPlaying()) {
+                    musicPlayer.pause();
+                } else {
+                    musicPlayer.resume();
+                }
+                break;
+            case ACTION_NEXT:
+                musicPlayer.skipToNext();
+                break;
+            case ACTION_PREVIOUS:
+                musicPlayer.skipToPrevious();
+                break;
+            case ACTION_STOP:
+                musicPlayer.stop();
+                break;
+        }
+        return START_NOT_STICKY;
+    }
+
+    @Nullable
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    @Override
+    public void onTaskRemoved(Intent rootIntent) {
+        super.onTaskRemoved(rootIntent);
+        // Al cerrar la app desde recientes solo se sigue si está sonando
+        if (!musicPlayer.isPlaying()) {
+            leaveForeground(true);
+            stopSelf();
+        }
+    }
+
+    @Override
+    public void onDestroy() {
+        running = false;
+        musicPlayer.removeListener(this);
+        leaveForeground(true);
+        mediaSession.setActive(false);
+        mediaSession.release();
+        Log.d(TAG, "🧹 Servicio de reproducción destruido");
+        super.onDestroy();
+    }
+
+    // ========================================
+    // EVENTOS DEL REPRODUCTOR
+    // ========================================
+
+    @Override
+    public void onPlaybackStarted(Song song) {
+        updateMetadata(song);
+        updatePlaybackState(PlaybackStateCompat.STATE_PLAYING);
+        enterForeground();
+    }
+
+    @Override
+    public void onPlaybackPaused() {
+        updatePlaybackState(PlaybackStateCompat.STATE_PAUSED);
+        if (musicPlayer.isPausedForFocusLoss()) {
+            // ✅ NUEVO: Pausa temporal: seguir en primer plano para que la reanudación desde
+            // segundo plano no tenga que volver a llamar a startForeground()
+            notificationManager.notify(NOTIFICATION_ID, buildNotification());
+            return;
+        }
+        leaveForeground(false);
+        notificationManager.notify(NOTIFICATION_ID, buildNotification());
+    }
+
+    @Override
+    public void onPlaybackStopped() {
+        finish(PlaybackStateCompat.STATE_STOPPED);
+    }
+
+    @Override
+    public void onPlaybackCompleted() {
+        finish(PlaybackStateCompat.STATE_STOPPED);
+    }
+
+    @Override
+    public void onPlaybackError(String error) {
+        finish(PlaybackStateCompat.STATE_ERROR);
+    }
+
+    @Override
+    public void onPlaybackStateRestored(Song song, boolean isPlaying) {
+        if (song != null && isPlaying) {
+            onPlaybackStarted(song);
+        }
+    }
+
+    private void finish(int playbackState) {
+        updatePlaybackState(playbackState);
+        mediaSession.setActive(false);
+        leaveForeground(true);
+        // Si vuelve a sonar antes de onDestroy, start() debe crear el servicio de nuevo
+        running = false;
+        stopSelf();
+    }
+
+    // ========================================
+    // PRIMER PLANO
+    // ========================================
+
+    private void enterForeground() {
+        Notification notification = buildNotification();
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                startForeground(NOTIFICATION_ID, notification, ServiceInfo.FOREGROUND_SERVICE_TYPE_MEDIA_PLAYBACK);
+            } else {
+                startForeground(NOTIFICATION_ID, notification);
+            }
+            inForeground = true;
+        } catch (IllegalStateException e) {
+            // ✅ NUEVO: Android 12+: reanudar en segundo plano (foco, auriculares, Bluetooth) no
+            // siempre permite volver a primer plano; se sigue con la notificación normal
+            Log.w(TAG, "⚠️ No se pudo volver a primer plano", e);
+            notificationManager.notify(NOTIFICATION_ID, notification);
+        }
+    }
+
+    private void leaveForeground(boolean removeNotification) {
+        if (inForeground) {
+            ServiceCompat.stopForeground(this, removeNotification
+                    ? ServiceCompat.STOP_FOREGROUND_REMOVE
+                    : ServiceCompat.STOP_FOREGROUND_DETACH);
+            inForeground = false;
+        } else if (removeNotification) {
+            notificationManager.cancel(NOTIFICATION_ID);
+        }
+    }
+
+    // ========================================
+    // MEDIA SESSION
+    // ========================================
+
+    private void updateMetadata(Song song) {
+        if (song == null) return;
+
+        MediaMetadataCompat.Builder metadata = new MediaMetadataCompat.Builder()
+                .putString(MediaMetadataCompat.METADATA_KEY_TITLE, song.getNombre())
+                .putString(MediaMetadataCompat.METADATA_KEY_ARTIST, song.getArtistasString())
+                .putString(MediaMetadataCompat.METADATA_KEY_ALBUM, song.getAlbum())
+                .putLong(MediaMetadataCompat.METADATA_KEY_DURATION, musicPlayer.getDuration());
+
+        if (albumArt != null && NextTrackPreloader.isSameSong(artSong, song)) {
+            metadata.putBitmap(MediaMetadataCompat.METADATA_KEY_ALBUM_ART, albumArt);
+        } else {
+            loadAlbumArt(song);
+        }
+
+        mediaSession.setMetadata(metadata.build());
+        mediaSession.setActive(true);
+    }
+
+    private void updatePlaybackState(int playbackState) {
+        float speed = playbackState == PlaybackStateCompat.STATE_PLAYING ? 1f : 0f;
+        mediaSession.setPlaybackState(new PlaybackStateCompat.Builder()
+                .setActions(SESSION_ACTIONS)
+                .setState(playbackState, musicPlayer.getCurrentPosition(), speed)
+                .build());
+    }
+
+    private void loadAlbumArt(Song song) {
+        artSong = song;
+        albumArt = null;
+        if (song.getImagenUrl() == null || song.getImagenUrl().isEmpty()) return;
+
+        Glide.with(getApplicationContext())
+                .asBitmap()
+                .load(song.getImagenUrl())
+                .into(new CustomTarget<Bitmap>(ART_SIZE_PX, ART_SIZE_PX) {
+                    @Override
+                    public void onResourceReady(@NonNull Bitmap resource, @Nullable Transition<? super Bitmap> transition) {
+                        // Puede llegar tarde, cuando ya suena otra canción
+                        if (artSong != song || !running) return;
+                        albumArt = resource;
+                        updateMetadata(song);
+                        notificationManager.notify(NOTIFICATION_ID, buildNotification());
+                    }
+
+                    @Override
+                    public void onLoadCleared(@Nullable Drawable placeholder) {
+                        if (artSong == song) {
+                            albumArt = null;
+                        }
+                    }
+                });
+    }
+
+    private class SessionCallback extends MediaSessionCompat.Callback {
+        @Override
+        public void onPlay() {
+            musicPlayer.resume();
+        }
+
+        @Override
+        public void onPause() {
+            musicPlayer.pause();
+        }
+
+        @Override
+        public void onSkipToNext() {
+            musicPlayer.skipToNext();
+        }
+
+        @Override
+        public void onSkipToPrevious() {
+            musicPlayer.skipToPrevious();
+        }
+
+        @Override
+        public void onStop() {
+            musicPlayer.stop();
+        }
+
+        @Override
+        public void onSeekTo(long position) {
+            musicPlayer.seekTo((int) position);
+            updatePlaybackState(musicPlayer.isPlaying()
+                    ? PlaybackStateCompat.STATE_PLAYING
+                    : PlaybackStateCompat.STATE_PAUSED);
+        }
+    }
+
+    // ========================================
+    // NOTIFICACIÓN
+    // ========================================
+
+    private void createNotificationChannel() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) return;
+
+        NotificationChannel channel = new NotificationChannel(
+                CHANNEL_ID, "Reproducción", NotificationManager.IMPORTANCE_LOW);
+        channel.setDescription("Controles de la canción que está sonando");
+        channel.setShowBadge(false);
+        notificationManager.createNotificationChannel(channel);
+    }
+
+    private Notification buildNotification() {
+        Song song = musicPlayer.getCurrentSong();
+        boolean playing = musicPlayer.isPlaying();
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_music_note)
+                .setContentTitle(song != null ? song.getNombre() : "OrbitSong")
+                .setContentText(song != null ? song.getArtistasString() : "")
+                .setSubText(song != null ? song.getAlbum() : null)
+                .setLargeIcon(NextTrackPreloader.isSameSong(artSong, song) ? albumArt : null)
+                .setContentIntent(buildContentIntent())
+                .setDeleteIntent(buildActionIntent(ACTION_STOP))
+                .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
+                .setOnlyAlertOnce(true)
+                .setShowWhen(false)
+                .setOngoing(playing)
+                .addAction(R.drawable.ic_skip_previous, "Anterior", buildActionIntent(ACTION_PREVIOUS))
+                .addAction(playing ? R.drawable.ic_pause : R.drawable.ic_play_arrow,
+                        playing ? "Pausar" : "Reproducir", buildActionIntent(ACTION_PLAY_PAUSE))
+                .addAction(R.drawable.ic_skip_next, "Siguiente", buildActionIntent(ACTION_NEXT))
+                .setStyle(new androidx.media.app.NotificationCompat.MediaStyle()
+                        .setMediaSession(mediaSession.getSessionToken())
+                        .setShowActionsInCompactView(0, 1, 2));
+
+        return builder.build();
+    }
+
+    private PendingIntent buildContentIntent() {
+        Intent intent = new Intent(this, HomeActivity.class);
+        intent.setFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_SINGLE_TOP);
+        return PendingIntent.getActivity(this, 0, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    private PendingIntent buildActionIntent(String action) {
+        Intent intent = new Intent(this, MediaPlaybackService.class).setAction(action);
+        return PendingIntent.getService(this, action.hashCode(), intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+}
@@ -5,6 +5,7 @@ import android.media.AudioAttributes;
 import android.media.AudioFocusRequest;
 import android.media.AudioManager;
 import android.media.MediaPlayer;
+import android.net.wifi.WifiManager;
 import android.os.Build;
 import android.os.PowerManager;
 import android.util.Log;
@@ -12,20 +13,75 @@ import android.util.Log;
 import com.sise.orbitsongv1.models.Song;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
 public class MusicPlayerService {
     private static final String TAG = "MusicPlayerService";
+    private static final int RESTART_THRESHOLD_MS = 3000; // "Anterior" reinicia la canción pasado este tiempo
+
+    // Intervalo de progreso para la barra del reproductor
+    public static final long PROGRESS_INTERVAL_SMOOTH_MS = 250;
     private static MusicPlayerService instance;
     private MediaPlayer mediaPlayer;
     private Song currentSong;
-    private boolean isPlaying = false;
-    private MusicPlayerListener listener;
+    // ✅ MODIFICADO: Varios observadores (referencias débiles) en lugar de un único listener
+    private final PlayerListenerRegistry listeners = new PlayerListenerRegistry();
+
+    // ✅ NUEVO: Un único MediaPlayer reutilizado con reset(); su estado se sigue aquí
+    private PlayerState state = PlayerState.IDLE;
+    private AudioAttributes playbackAttributes;
+
+    // ✅ NUEVO: Precarga de la siguiente canción en un segundo MediaPlayer
+    private NextTrackPreloader preloader;
+    private Song nextSong;                     // Siguiente de la cola, la que se precarga
+    private boolean nextChained = false;       // setNextMediaPlayer() activo sobre el reproductor actual
+    private boolean awaitingPreloaded = false; // Se pidió la canción que aún se está precargando
+    private boolean pausedForFocusLoss = false; // ✅ NUEVO: Pausa temporal por foco; se reanuda sola
+
+    // ✅ NUEVO: Un único temporizador de progreso compartido por todas las pantallas
+    private final PlaybackProgressTicker progressTicker = new PlaybackProgressTicker(this);
+    private int cachedDuration = 0;
+
+    // ✅ NUEVO: Cola de reproducción (lista de origen, aleatorio y repetición)
+    private final PlaybackQueue queue = new PlaybackQueue();
+
+    // ✅ NUEVO: Tiempo hasta el primer audio y cortes de buffering
+    private final PlaybackMetrics metrics = PlaybackMetrics.getInstance();
 
     // ✅ NUEVOS: Gestión de Audio Focus
     private Context context;
     private AudioManager audioManager;
     private AudioFocusRequest audioFocusRequest;
-    private PowerManager.WakeLock wakeLock;
+
+    // ✅ MODIFICADO: La CPU la mantiene el propio MediaPlayer (setWakeMode) y el Wi-Fi solo
+    // se retiene mientras se carga o suena una preview que viene de la red
+    private WifiManager.WifiLock wifiLock;
+    // setWakeMode solo actúa tras start(): durante PREPARING la CPU se mantiene con este lock
+    private PowerManager.WakeLock prepareWakeLock;
+    private static final long PREPARE_WAKE_LOCK_TIMEOUT_MS = 60_000;
+    private boolean streamingFromNetwork = false;
+
+    /**
+     * Estados del MediaPlayer (ver diagrama de estados de android.media.MediaPlayer).
+     */
+    public enum PlayerState {
+        IDLE,         // Recién creado o tras reset(): sin fuente de datos
+        INITIALIZED,  // setDataSource() hecho
+        PREPARING,    // prepareAsync() en curso
+        PREPARED,     // Listo para start()
+        STARTED,      // Sonando
+        PAUSED,
+        COMPLETED,    // Terminó la pista; start() la vuelve a empezar
+        ERROR         // Solo sale de aquí con reset()
+    }
+
+    /**
+     * Recibe la posición de reproducción con la frecuencia pedida al registrarse.
+     */
+    public interface ProgressObserver {
+        void onProgress(int currentPosition, int duration);
+    }
 
     public interface MusicPlayerListener {
         void onPlaybackStarted(Song song);
@@ -33,7 +89,13 @@ public class MusicPlayerService {
         void onPlaybackStopped();
         void onPlaybackCompleted();
         void onPlaybackError(String error);
-        void onProgressUpdate(int currentPosition, int duration);
+
+        /**
+         * Estado actual, entregado al registrarse (song es null si no hay nada cargado).
+         * Sirve para sincronizar mini reproductor e iconos sin mostrar avisos.
+         */
+        default void onPlaybackStateRestored(Song song, boolean isPlaying) {
+        }
     }
 
     private MusicPlayerService() {
@@ -47,17 +109,91 @@ public class MusicPlayerService {
         return instance;
     }
 
-    // ✅ NUEVO: Método para inicializar con contexto
+    // ✅ MODIFICADO: Idempotente; cada activity lo llama en onCreate sin cortar lo que suena
     public void initialize(Context context) {
-        this.context = context.getApplicationContext();
-        this.audioManager = (AudioManager) this.context.getSystemService(Context.AUDIO_SERVICE);
-        initializeMediaPlayer();
-        setupAudioFocus();
-        Log.d(TAG, "✅ MusicPlayerService inicializado con contexto");
+        if (this.context == null) {
+            this.context = context.getApplicationContext();
+            this.audioManager = (AudioManager) this.context.getSystemService(Context.AUDIO_SERVICE);
+            setupAudioFocus();
+            setupLocks();
+            Log.d(TAG, "✅ MusicPlayerService inicializado con contexto");
+        }
+        ensureMediaPlayer();
+    }
+
+    public PlayerState getState() {
+        return state;
     }
 
-    public void setListener(MusicPlayerListener listener) {
-        this.listener = listener;
+    private void setState(PlayerState newState) {
+        if (state == newState) return;
+        Log.d(TAG, "🔁 Estado: " + state + " → " + newState);
+        state = newState;
+        if (newState == PlayerState.IDLE || newState == PlayerState.ERROR) {
+            cachedDuration = 0;
+        }
+        progressTicker.update();
+        updateLocks();
+    }
+
+    // ========================================
+    // ✅ NUEVO: OBSERVADORES DE PROGRESO
+    // ========================================
+
+    /**
+     * Registra un observador de progreso. Registrar en onResume y quitar en onPause: el
+     * temporizador solo corre mientras haya alguno y se esté reproduciendo.
+     */
+    public void addProgressObserver(ProgressObserver observer, long intervalMs) {
+        progressTicker.add(observer, intervalMs);
+    }
+
+    public void removeProgressObserver(ProgressObserver observer) {
+        progressTicker.remove(observer);
+    }
+
+    /**
+     * Registra un observador y le entrega de inmediato el estado actual. Las activities se
+     * registran en onCreate y se dan de baja en onDestroy; al ser referencias débiles, un
+     * olvido no retiene la activity.
+     */
+    public void addListener(MusicPlayerListener listener) {
+        if (!listeners.add(listener)) return;
+
+        Song song = currentSong;
+        boolean playing = isPlaying();
+        listeners.deliverTo(listener, l -> l.onPlaybackStateRestored(song, playing));
+    }
+
+    public void removeListener(MusicPlayerListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Notificaciones: se captura el estado ahora por si la entrega se difiere al hilo principal
+    private void notifyStarted() {
+        // ✅ NUEVO: El servicio en primer plano mantiene vivo el proceso con la app cerrada
+        if (context != null) {
+            MediaPlaybackService.start(context);
+        }
+        Song song = currentSong;
+        listeners.dispatch(l -> l.onPlaybackStarted(song));
+    }
+
+    private void notifyPaused() {
+        listeners.dispatch(MusicPlayerListener::onPlaybackPaused);
+    }
+
+    private void notifyStopped() {
+        listeners.dispatch(MusicPlayerListener::onPlaybackStopped);
+    }
+
+    private void notifyCompleted() {
+        listeners.dispatch(MusicPlayerListener::onPlaybackCompleted);
+    }
+
+    private void notifyError(String message) {
+        metrics.markError();
+        listeners.dispatch(l -> l.onPlaybackError(message));
     }
 
     // ✅ NUEVO: Configurar Audio Focus
@@ -85,7 +221,8 @@ public class MusicPlayerService {
         switch (focusChange) {
             case AudioManager.AUDIOFOCUS_GAIN:
                 Log.d(TAG, "🔊 Audio Focus ganado - reanudando");
-                if (!isPlaying && mediaPlayer != null) {
+                // Solo se reanuda lo que pausó la pérdida temporal, no una pausa del usuario
+                if (state == PlayerState.PAUSED && pausedForFocusLoss) {
                     resume();
                 }
                 break;
@@ -95,7 +232,7 @@ public class MusicPlayerService {
                 break;
             case AudioManager.AUDIOFOCUS_LOSS_TRANSIENT:
                 Log.d(TAG, "🔊 Audio Focus perdido temporalmente - pausando");
-                pause();
+                pause(true);
                 break;
             case AudioManager.AUDIOFOCUS_LOSS_TRANSIENT_CAN_DUCK:
                 Log.d(TAG, "🔊 Audio Focus perdido - bajando volumen");
@@ -132,97 +269,171 @@ public class MusicPlayerService {
         return granted;
     }
 
-    // ✅ MEJORADO: initializeMediaPlayer con mejor configuración
-    private void initializeMediaPlayer() {
-        Log.d(TAG, "🔧 Inicializando MediaPlayer...");
+    private void setupLocks() {
+        // ✅ WIFI LOCK para que el streaming no se corte con la pantalla apagada
+        WifiManager wifiManager = (WifiManager) context.getSystemService(Context.WIFI_SERVICE);
+        if (wifiManager != null) {
+            wifiLock = wifiManager.createWifiLock(WifiManager.WIFI_MODE_FULL_HIGH_PERF, "OrbitSong::MusicPlayerWifiLock");
+            wifiLock.setReferenceCounted(false);
+        }
 
-        if (mediaPlayer != null) {
-            release();
+        // ✅ NUEVO: CPU despierta mientras se prepara la pista (p. ej. avance automático con la pantalla apagada)
+        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        if (powerManager != null) {
+            prepareWakeLock = powerManager.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, "OrbitSong::MusicPlayerPrepareLock");
+            prepareWakeLock.setReferenceCounted(false);
         }
+    }
+
+    // ✅ MODIFICADO: El MediaPlayer nativo se crea una sola vez; entre pistas solo se hace reset()
+    private void ensureMediaPlayer() {
+        if (mediaPlayer != null) return;
+
+        Log.d(TAG, "🔧 Creando MediaPlayer...");
 
         try {
             mediaPlayer = new MediaPlayer();
+            setState(PlayerState.IDLE);
 
             // ✅ CONFIGURACIÓN DE AUDIO MEJORADA
-            AudioAttributes audioAttributes = new AudioAttributes.Builder()
+            playbackAttributes = new AudioAttributes.Builder()
                     .setUsage(AudioAttributes.USAGE_MEDIA)
                     .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
                     .setFlags(AudioAttributes.FLAG_AUDIBILITY_ENFORCED)
                     .build();
-            mediaPlayer.setAudioAttributes(audioAttributes);
+            mediaPlayer.setAudioAttributes(playbackAttributes);
 
             // ✅ CONFIGURACIÓN ADICIONAL
             mediaPlayer.setScreenOnWhilePlaying(false);
-
-            // ✅ WAKE LOCK para mantener CPU activa durante reproducción
+            // ✅ NUEVO: El wake lock lo toma y suelta el MediaPlayer solo mientras suena
             if (context != null) {
-                PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
-                if (powerManager != null) {
-                    wakeLock = powerManager.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, "OrbitSong::MusicPlayerWakeLock");
-                }
+                mediaPlayer.setWakeMode(context, PowerManager.PARTIAL_WAKE_LOCK);
             }
 
-            // ✅ LISTENERS MEJORADOS CON MEJOR LOGGING
-            mediaPlayer.setOnPreparedListener(mp -> {
-                Log.d(TAG, "✅ MediaPlayer PREPARADO - Iniciando reproducción");
-                try {
-                    mp.start();
-                    isPlaying = true;
+            attachPlayerListeners(mediaPlayer);
+            preloader = new NextTrackPreloader(context, playbackAttributes, new NextTrackPreloader.Callback() {
+                @Override
+                public void onNextPrepared(Song song) {
+                    MusicPlayerService.this.onNextPrepared(song);
+                }
 
-                    // Activar wake lock
-                    if (wakeLock != null && !wakeLock.isHeld()) {
-                        wakeLock.acquire(10*60*1000L /*10 minutos*/);
-                    }
+                @Override
+                public void onNextFailed(Song song) {
+                    MusicPlayerService.this.onNextFailed(song);
+                }
+            });
 
-                    if (listener != null) {
-                        listener.onPlaybackStarted(currentSong);
-                    }
-                    Log.d(TAG, "✅ Reproducción INICIADA exitosamente");
+            Log.d(TAG, "✅ MediaPlayer creado correctamente");
 
-                    // Debug de estado del MediaPlayer
-                    logMediaPlayerState();
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Error al crear MediaPlayer", e);
+            mediaPlayer = null;
+            notifyError("Error de inicialización: " + e.getMessage());
+        }
+    }
 
-                } catch (Exception e) {
-                    Log.e(TAG, "❌ Error al iniciar reproducción después de prepared", e);
-                    if (listener != null) {
-                        listener.onPlaybackError("Error al iniciar: " + e.getMessage());
-                    }
-                }
-            });
+    /**
+     * Listeners del reproductor principal. Se registran una vez por instancia y sobreviven a
+     * reset(); se vuelven a registrar cuando el reproductor precargado pasa a ser el principal.
+     */
+    private void attachPlayerListeners(MediaPlayer player) {
+        player.setOnPreparedListener(mp -> {
+            if (mp != mediaPlayer) return;
+            Log.d(TAG, "✅ MediaPlayer PREPARADO - Iniciando reproducción");
+            setState(PlayerState.PREPARED);
+            metrics.markPrepared();
+            try {
+                mp.start();
+                setState(PlayerState.STARTED);
+                metrics.markStarted();
 
-            mediaPlayer.setOnCompletionListener(mp -> {
-                Log.d(TAG, "✅ Reproducción completada");
-                isPlaying = false;
-                releaseWakeLock();
-                if (listener != null) {
-                    listener.onPlaybackCompleted();
-                }
-            });
+                notifyStarted();
+                Log.d(TAG, "✅ Reproducción INICIADA exitosamente");
 
-            mediaPlayer.setOnErrorListener((mp, what, extra) -> {
-                isPlaying = false;
-                releaseWakeLock();
-                String detailedError = getDetailedError(what, extra);
-                Log.e(TAG, "❌ ERROR MediaPlayer: " + detailedError);
-                if (listener != null) {
-                    listener.onPlaybackError(detailedError);
-                }
-                return true;
-            });
+                // Debug de estado del MediaPlayer
+                logMediaPlayerState();
 
-            mediaPlayer.setOnInfoListener((mp, what, extra) -> {
-                Log.d(TAG, "ℹ️ MediaPlayer Info: what=" + what + ", extra=" + extra);
-                return false;
-            });
+                // Con la canción actual ya sonando, preparar la siguiente
+                refreshUpcoming();
 
-            Log.d(TAG, "✅ MediaPlayer inicializado correctamente");
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error al iniciar reproducción después de prepared", e);
+                notifyError("Error al iniciar: " + e.getMessage());
+            }
+        });
+
+        player.setOnCompletionListener(mp -> {
+            if (mp != mediaPlayer) return;
+            if (nextChained) {
+                // setNextMediaPlayer() ya arrancó la siguiente canción sin hueco
+                Log.d(TAG, "⏭️ Reproducción completada, continúa la siguiente precargada");
+                swapToPreloaded(false);
+                return;
+            }
 
-        } catch (Exception e) {
-            Log.e(TAG, "❌ Error al inicializar MediaPlayer", e);
-            if (listener != null) {
-                listener.onPlaybackError("Error de inicialización: " + e.getMessage());
+            // ✅ NUEVO: Avanzar en la cola (aún no estaba precargada)
+            Song following = queue.moveToNext(false);
+            if (following != null) {
+                Log.d(TAG, "⏭️ Reproducción completada, siguiente en la cola: " + following.getNombre());
+                playSong(following, false);
+                return;
             }
+
+            Log.d(TAG, "✅ Reproducción completada");
+            setState(PlayerState.COMPLETED);
+            notifyCompleted();
+        });
+
+        player.setOnErrorListener((mp, what, extra) -> {
+            if (mp != mediaPlayer) return true;
+            setState(PlayerState.ERROR);
+            nextChained = false;
+            String detailedError = getDetailedError(what, extra);
+            Log.e(TAG, "❌ ERROR MediaPlayer: " + detailedError);
+            notifyError(detailedError);
+            return true;
+        });
+
+        player.setOnInfoListener((mp, what, extra) -> {
+            Log.d(TAG, "ℹ️ MediaPlayer Info: what=" + what + ", extra=" + extra);
+            if (mp != mediaPlayer) return false;
+            switch (what) {
+                case MediaPlayer.MEDIA_INFO_AUDIO_RENDERING_START:
+                    metrics.markFirstAudio();
+                    break;
+                case MediaPlayer.MEDIA_INFO_BUFFERING_START:
+                    metrics.markStallStart();
+                    break;
+                case MediaPlayer.MEDIA_INFO_BUFFERING_END:
+                    metrics.markStallEnd();
+                    break;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Devuelve el reproductor a IDLE para cargar otra fuente. reset() es válido desde
+     * cualquier estado (incluido ERROR y PREPARING) y es mucho más barato que crear uno nuevo.
+     */
+    private void resetPlayer() {
+        if (mediaPlayer == null) return;
+
+        if (state != PlayerState.IDLE) {
+            mediaPlayer.reset();
+            setState(PlayerState.IDLE);
         }
+        // reset() también deshace setNextMediaPlayer()
+        nextChained = false;
+        // Los atributos de audio no sobreviven a reset() en todas las versiones
+        mediaPlayer.setAudioAttributes(playbackAttributes);
+    }
+
+    private boolean isInPlaybackState() {
+        return state == PlayerState.PREPARED
+                || state == PlayerState.STARTED
+                || state == PlayerState.PAUSED
+                || state == PlayerState.COMPLETED;
     }
 
     // ✅ NUEVO: Logging del estado del MediaPlayer
@@ -230,7 +441,7 @@ public class MusicPlayerService {
         if (mediaPlayer == null) return;
 
         try {
-            Log.d(TAG, "📊 Estado MediaPlayer:");
+            Log.d(TAG, "📊 Estado MediaPlayer: " + state);
             Log.d(TAG, "   🔄 isPlaying: " + mediaPlayer.isPlaying());
             Log.d(TAG, "   ⏱️ Duración: " + mediaPlayer.getDuration() + "ms");
             Log.d(TAG, "   📍 Posición: " + mediaPlayer.getCurrentPosition() + "ms");
@@ -283,13 +494,19 @@ public class MusicPlayerService {
 
     // ✅ MEJORADO: playSong con validaciones exhaustivas
     public void playSong(Song song) {
+        playSong(song, true);
+    }
+
+    /**
+     * @param userInitiated false en el avance automático de la cola: no cuenta como toque en
+     *                      las métricas de tiempo hasta el primer audio (solo sus cortes)
+     */
+    private void playSong(Song song, boolean userInitiated) {
         Log.d(TAG, "🎵 === INICIANDO PLAYSONG ===");
 
         if (song == null) {
             Log.e(TAG, "❌ Canción es null");
-            if (listener != null) {
-                listener.onPlaybackError("Canción no válida");
-            }
+            notifyError("Canción no válida");
             return;
         }
 
@@ -304,18 +521,14 @@ public class MusicPlayerService {
         // ✅ VALIDACIÓN 1: URL no nula ni vacía
         if (previewUrl == null || previewUrl.trim().isEmpty()) {
             Log.e(TAG, "❌ Preview URL es null o vacía");
-            if (listener != null) {
-                listener.onPlaybackError("🚫 Esta canción no tiene preview disponible\n💡 Prueba con otra canción");
-            }
+            notifyError("🚫 Esta canción no tiene preview disponible\n💡 Prueba con otra canción");
             return;
         }
 
         // ✅ VALIDACIÓN 2: URL debe ser HTTPS
         if (!previewUrl.startsWith("https://")) {
             Log.e(TAG, "❌ Preview URL no es HTTPS: " + previewUrl);
-            if (listener != null) {
-                listener.onPlaybackError("🔒 URL de preview no es segura\n💡 Solo se permiten URLs HTTPS");
-            }
+            notifyError("🔒 URL de preview no es segura\n💡 Solo se permiten URLs HTTPS");
             return;
         }
 
@@ -324,6 +537,13 @@ public class MusicPlayerService {
             Log.w(TAG, "⚠️ URL no parece ser de Spotify: " + previewUrl);
         }
 
+        // ✅ NUEVO: Desde aquí se mide lo que espera el usuario
+        if (userInitiated) {
+            metrics.markTap();
+        } else {
+            metrics.markAutoAdvance();
+        }
+
         // ✅ VALIDACIÓN 4: Solicitar Audio Focus
         if (!requestAudioFocus()) {
             Log.w(TAG, "⚠️ No se pudo obtener Audio Focus, pero continuando...");
@@ -332,51 +552,84 @@ public class MusicPlayerService {
         try {
             Log.d(TAG, "🎵 Configurando MediaPlayer...");
 
-            // Detener cualquier reproducción actual
-            stop();
+            // ✅ MODIFICADO: Reutilizar el mismo MediaPlayer (reset) en vez de liberar y crear otro
+            ensureMediaPlayer();
+            if (mediaPlayer == null) return;
+            // ✅ NUEVO: Mantener la cola alineada con la canción pedida
+            if (!queue.moveTo(song)) {
+                queue.setTracks(Collections.singletonList(song), song);
+            }
 
-            // Reinicializar MediaPlayer
-            initializeMediaPlayer();
+            // ✅ NUEVO: La canción ya está precargada: cambio de reproductor casi instantáneo
+            if (preloader.isPreparedFor(song)) {
+                Log.d(TAG, "⚡ Usando reproductor precargado");
+                metrics.markSource(PlaybackMetrics.Source.PRELOADED);
+                swapToPreloaded(true);
+                return;
+            }
 
+            resetPlayer();
             currentSong = song;
 
+            // ✅ NUEVO: Se está precargando: esperar a que termine en lugar de empezar de cero
+            if (preloader.isPreparingFor(song)) {
+                Log.d(TAG, "⏳ Canción en precarga, se iniciará al estar lista");
+                metrics.markSource(PlaybackMetrics.Source.PRELOADED);
+                awaitingPreloaded = true;
+                refreshUpcoming();
+                return;
+            }
+            awaitingPreloaded = false;
+            refreshUpcoming();
+
             Log.d(TAG, "🔄 Configurando DataSource: " + previewUrl);
-            mediaPlayer.setDataSource(previewUrl);
+            // ✅ NUEVO: Desde la caché local si ya se escuchó; si no, se guarda mientras suena
+            streamingFromNetwork = !PreviewAudioCache.getInstance().isCached(previewUrl);
+            metrics.markSource(streamingFromNetwork
+                    ? PlaybackMetrics.Source.NETWORK
+                    : PlaybackMetrics.Source.CACHE);
+            PreviewAudioCache.getInstance().setDataSource(mediaPlayer, previewUrl);
+            setState(PlayerState.INITIALIZED);
+            metrics.markDataSourceSet();
 
             Log.d(TAG, "🔄 Preparando MediaPlayer de forma asíncrona...");
             mediaPlayer.prepareAsync();
+            setState(PlayerState.PREPARING);
+            metrics.markPrepareStarted();
 
             Log.d(TAG, "✅ MediaPlayer configurado, esperando onPrepared...");
 
         } catch (IOException e) {
+            setState(PlayerState.ERROR);
             Log.e(TAG, "❌ IOException al configurar MediaPlayer", e);
             Log.e(TAG, "   🔗 URL problemática: " + previewUrl);
-            if (listener != null) {
-                listener.onPlaybackError("❌ Error de conexión\n🔄 Verifica tu internet e intenta de nuevo");
-            }
+            notifyError("❌ Error de conexión\n🔄 Verifica tu internet e intenta de nuevo");
         } catch (IllegalStateException e) {
-            Log.e(TAG, "❌ IllegalStateException en MediaPlayer", e);
-            initializeMediaPlayer();
-            if (listener != null) {
-                listener.onPlaybackError("🔄 Error interno del reproductor\nIntenta de nuevo");
-            }
+            Log.e(TAG, "❌ IllegalStateException en MediaPlayer (estado: " + state + ")", e);
+            setState(PlayerState.ERROR);
+            notifyError("🔄 Error interno del reproductor\nIntenta de nuevo");
         } catch (Exception e) {
             Log.e(TAG, "❌ Error inesperado al configurar MediaPlayer", e);
-            if (listener != null) {
-                listener.onPlaybackError("❌ Error inesperado: " + e.getMessage());
-            }
+            notifyError("❌ Error inesperado: " + e.getMessage());
         }
     }
 
     public void pause() {
-        if (mediaPlayer != null && isPlaying) {
+        pause(false);
+    }
+
+    /**
+     * @param forFocusLoss pausa temporal (llamada, otra app...): el servicio de reproducción
+     *                     sigue en primer plano para poder reanudar desde segundo plano
+     */
+    private void pause(boolean forFocusLoss) {
+        if (mediaPlayer != null && state == PlayerState.STARTED) {
             try {
                 mediaPlayer.pause();
-                isPlaying = false;
-                releaseWakeLock();
-                if (listener != null) {
-                    listener.onPlaybackPaused();
-                }
+                pausedForFocusLoss = forFocusLoss;
+                setState(PlayerState.PAUSED);
+                progressTicker.publishNow();
+                notifyPaused();
                 Log.d(TAG, "⏸️ Reproducción pausada");
             } catch (IllegalStateException e) {
                 Log.e(TAG, "❌ Error al pausar", e);
@@ -384,16 +637,21 @@ public class MusicPlayerService {
         }
     }
 
+    public boolean isPausedForFocusLoss() {
+        return state == PlayerState.PAUSED && pausedForFocusLoss;
+    }
+
     public void resume() {
-        if (mediaPlayer != null && !isPlaying) {
+        // start() es válido desde PREPARED, PAUSED y COMPLETED (vuelve a empezar)
+        if (mediaPlayer != null && (state == PlayerState.PREPARED
+                || state == PlayerState.PAUSED
+                || state == PlayerState.COMPLETED)) {
             try {
                 if (requestAudioFocus()) {
+                    pausedForFocusLoss = false;
                     mediaPlayer.start();
-                    isPlaying = true;
-                    acquireWakeLock();
-                    if (listener != null) {
-                        listener.onPlaybackStarted(currentSong);
-                    }
+                    setState(PlayerState.STARTED);
+                    notifyStarted();
                     Log.d(TAG, "▶️ Reproducción reanudada");
                 }
             } catch (IllegalStateException e) {
@@ -405,16 +663,16 @@ public class MusicPlayerService {
     public void stop() {
         if (mediaPlayer != null) {
             try {
-                if (isPlaying) {
-                    mediaPlayer.stop();
-                }
-                isPlaying = false;
+                // reset() en lugar de stop(): deja el reproductor listo para la siguiente pista
+                resetPlayer();
                 currentSong = null;
-                releaseWakeLock();
-                abandonAudioFocus();
-                if (listener != null) {
-                    listener.onPlaybackStopped();
+                awaitingPreloaded = false;
+                pausedForFocusLoss = false;
+                if (preloader != null) {
+                    preloader.cancel();
                 }
+                abandonAudioFocus();
+                notifyStopped();
                 Log.d(TAG, "⏹️ Reproducción detenida");
             } catch (IllegalStateException e) {
                 Log.e(TAG, "❌ Error al detener", e);
@@ -423,9 +681,10 @@ public class MusicPlayerService {
     }
 
     public void seekTo(int position) {
-        if (mediaPlayer != null && isPlaying) {
+        if (mediaPlayer != null && isInPlaybackState()) {
             try {
                 mediaPlayer.seekTo(position);
+                progressTicker.publishNow();
                 Log.d(TAG, "⏩ Seek a posición: " + position + "ms");
             } catch (IllegalStateException e) {
                 Log.e(TAG, "❌ Error al hacer seek", e);
@@ -434,7 +693,7 @@ public class MusicPlayerService {
     }
 
     public int getCurrentPosition() {
-        if (mediaPlayer != null && isPlaying) {
+        if (mediaPlayer != null && (state == PlayerState.STARTED || state == PlayerState.PAUSED)) {
             try {
                 return mediaPlayer.getCurrentPosition();
             } catch (IllegalStateException e) {
@@ -445,9 +704,12 @@ public class MusicPlayerService {
     }
 
     public int getDuration() {
-        if (mediaPlayer != null) {
+        if (mediaPlayer != null && isInPlaybackState()) {
+            // La duración no cambia durante la canción: una sola llamada al reproductor nativo
+            if (cachedDuration > 0) return cachedDuration;
             try {
-                return mediaPlayer.getDuration();
+                cachedDuration = Math.max(mediaPlayer.getDuration(), 0);
+                return cachedDuration;
             } catch (IllegalStateException e) {
                 Log.e(TAG, "❌ Error al obtener duración", e);
             }
@@ -456,25 +718,244 @@ public class MusicPlayerService {
     }
 
     public boolean isPlaying() {
-        return isPlaying && mediaPlayer != null;
+        return mediaPlayer != null && state == PlayerState.STARTED;
+    }
+
+    // ========================================
+    // ✅ NUEVO: COLA DE REPRODUCCIÓN
+    // ========================================
+
+    /**
+     * Reemplaza la cola por la lista desde la que el usuario eligió 'start'
+     * (solo entran las canciones con preview). No empieza a reproducir.
+     */
+    public void setQueue(List<Song> songs, Song start) {
+        queue.setTracks(songs, start);
+        refreshUpcoming();
+        Log.d(TAG, "📋 Cola de reproducción: " + queue.size() + " canciones");
+    }
+
+    /**
+     * Salta a la siguiente canción de la cola; devuelve false si no hay ninguna.
+     */
+    public boolean skipToNext() {
+        Song next = queue.moveToNext(true);
+        if (next == null) return false;
+        playSong(next);
+        return true;
+    }
+
+    /**
+     * Vuelve a la anterior, o al inicio de la actual si ya lleva unos segundos sonando.
+     */
+    public boolean skipToPrevious() {
+        if (getCurrentPosition() > RESTART_THRESHOLD_MS) {
+            seekTo(0);
+            return true;
+        }
+
+        Song previous = queue.moveToPrevious();
+        if (previous == null) {
+            if (isInPlaybackState()) {
+                seekTo(0);
+                return true;
+            }
+            return false;
+        }
+        playSong(previous);
+        return true;
+    }
+
+    public Song getNextSong() {
+        return nextSong;
+    }
+
+    /**
+     * Próximas canciones de la cola, p. ej. para precargar sus carátulas.
+     */
+    public List<Song> getUpcomingSongs(int count) {
+        return queue.upcoming(count);
+    }
+
+    public boolean isShuffleEnabled() {
+        return queue.isShuffleEnabled();
+    }
+
+    public void setShuffleEnabled(boolean enabled) {
+        queue.setShuffleEnabled(enabled);
+        refreshUpcoming();
+    }
+
+    public PlaybackQueue.RepeatMode getRepeatMode() {
+        return queue.getRepeatMode();
+    }
+
+    public PlaybackQueue.RepeatMode cycleRepeatMode() {
+        PlaybackQueue.RepeatMode mode = queue.cycleRepeatMode();
+        refreshUpcoming();
+        return mode;
+    }
+
+    // ========================================
+    // ✅ NUEVO: SIGUIENTE CANCIÓN (PRECARGA)
+    // ========================================
+
+    /**
+     * Recalcula la siguiente canción según la cola y los modos, y la precarga.
+     */
+    private void refreshUpcoming() {
+        Song upcoming = queue.peekNext();
+        if (!NextTrackPreloader.isSameSong(upcoming, nextSong)) {
+            unchainNext();
+            nextSong = upcoming;
+        }
+
+        // REPEAT ONE: el propio reproductor repite; la siguiente solo se usa al saltar
+        boolean repeatOne = queue.getRepeatMode() == PlaybackQueue.RepeatMode.ONE;
+        if (repeatOne) {
+            unchainNext();
+        }
+        if (mediaPlayer != null && state != PlayerState.ERROR) {
+            mediaPlayer.setLooping(repeatOne);
+        }
+
+        preloadNextIfReady();
+    }
+
+    private void preloadNextIfReady() {
+        if (preloader == null || awaitingPreloaded) return;
+
+        // No competir por la red con la canción que aún se está preparando
+        if (state == PlayerState.STARTED || state == PlayerState.PAUSED) {
+            if (nextSong == null || !nextSong.hasPreview()) {
+                preloader.cancel();
+                return;
+            }
+            preloader.preload(nextSong);
+            chainNextIfPrepared();
+        }
+    }
+
+    private void onNextPrepared(Song song) {
+        if (awaitingPreloaded && NextTrackPreloader.isSameSong(song, currentSong)) {
+            metrics.markPrepared();
+            swapToPreloaded(true);
+        } else {
+            chainNextIfPrepared();
+        }
+    }
+
+    private void onNextFailed(Song song) {
+        if (awaitingPreloaded && NextTrackPreloader.isSameSong(song, currentSong)) {
+            awaitingPreloaded = false;
+            notifyError("❌ Error de conexión\n🔄 Verifica tu internet e intenta de nuevo");
+        }
+    }
+
+    /**
+     * Encadena el reproductor precargado para que arranque solo al terminar el actual.
+     */
+    private void chainNextIfPrepared() {
+        if (nextChained || mediaPlayer == null || !preloader.isPreparedFor(nextSong)) return;
+        if (state != PlayerState.STARTED && state != PlayerState.PAUSED) return;
+        if (queue.getRepeatMode() == PlaybackQueue.RepeatMode.ONE) return;
+
+        try {
+            mediaPlayer.setNextMediaPlayer(preloader.peekPrepared());
+            nextChained = true;
+            Log.d(TAG, "🔗 Siguiente canción encadenada: " + nextSong.getNombre());
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            Log.w(TAG, "⚠️ No se pudo encadenar la siguiente canción", e);
+        }
+    }
+
+    private void unchainNext() {
+        if (!nextChained || mediaPlayer == null) return;
+
+        try {
+            mediaPlayer.setNextMediaPlayer(null);
+        } catch (IllegalStateException e) {
+            Log.w(TAG, "⚠️ Error al desencadenar la siguiente canción", e);
+        }
+        nextChained = false;
+    }
+
+    /**
+     * El reproductor precargado pasa a ser el principal y el anterior queda para la próxima precarga.
+     *
+     * @param startNow false cuando setNextMediaPlayer() ya lo arrancó
+     */
+    private void swapToPreloaded(boolean startNow) {
+        Song song = preloader.getSong();
+        MediaPlayer next = preloader.take();
+        if (next == null) return;
+
+        MediaPlayer previous = mediaPlayer;
+        unchainNext();
+
+        mediaPlayer = next;
+        attachPlayerListeners(next);
+        // Liberar primero el anterior para que nunca suenen los dos a la vez
+        preloader.recycle(previous);
+        currentSong = song;
+        cachedDuration = 0;
+        awaitingPreloaded = false;
+        streamingFromNetwork = !PreviewAudioCache.getInstance().isCached(song.getPreviewUrl());
+        queue.moveTo(song);
+
+        if (!startNow) {
+            // Encadenada por setNextMediaPlayer(): nadie tocó nada, no hay espera que medir
+            metrics.markAutoAdvance(PlaybackMetrics.Source.PRELOADED);
+        }
+
+        try {
+            if (startNow) {
+                next.start();
+            }
+            setState(PlayerState.STARTED);
+            // Encadenada ya estaba en STARTED y setState() no hace nada: el origen sí cambió
+            updateLocks();
+            metrics.markStarted();
+            Log.d(TAG, "✅ Reproduciendo canción precargada: " + song.getNombre());
+            notifyStarted();
+        } catch (IllegalStateException e) {
+            setState(PlayerState.ERROR);
+            Log.e(TAG, "❌ Error al iniciar canción precargada", e);
+            notifyError("Error al iniciar: " + e.getMessage());
+            return;
+        }
+
+        refreshUpcoming();
     }
 
     public Song getCurrentSong() {
         return currentSong;
     }
 
-    // ✅ NUEVO: Gestión de Wake Lock
-    private void acquireWakeLock() {
-        if (wakeLock != null && !wakeLock.isHeld()) {
-            wakeLock.acquire(10*60*1000L /*10 minutos*/);
-            Log.d(TAG, "🔋 Wake Lock adquirido");
+    // ✅ NUEVO: Wifi Lock solo mientras se carga o suena desde la red
+    private void updateLocks() {
+        if (prepareWakeLock != null) {
+            boolean preparing = state == PlayerState.PREPARING;
+            if (preparing && !prepareWakeLock.isHeld()) {
+                // Con límite de tiempo por si prepareAsync nunca responde
+                prepareWakeLock.acquire(PREPARE_WAKE_LOCK_TIMEOUT_MS);
+                Log.d(TAG, "🔋 Wake Lock de preparación adquirido");
+            } else if (!preparing && prepareWakeLock.isHeld()) {
+                prepareWakeLock.release();
+                Log.d(TAG, "🔋 Wake Lock de preparación liberado");
+            }
         }
-    }
 
-    private void releaseWakeLock() {
-        if (wakeLock != null && wakeLock.isHeld()) {
-            wakeLock.release();
-            Log.d(TAG, "🔋 Wake Lock liberado");
+        if (wifiLock == null) return;
+
+        boolean needed = streamingFromNetwork
+                && (state == PlayerState.PREPARING || state == PlayerState.STARTED);
+        if (needed && !wifiLock.isHeld()) {
+            wifiLock.acquire();
+            Log.d(TAG, "📶 Wifi Lock adquirido");
+        } else if (!needed && wifiLock.isHeld()) {
+            wifiLock.release();
+            Log.d(TAG, "📶 Wifi Lock liberado");
         }
     }
 
@@ -495,19 +976,23 @@ public class MusicPlayerService {
 
         if (mediaPlayer != null) {
             try {
-                if (isPlaying) {
-                    mediaPlayer.stop();
-                }
                 mediaPlayer.release();
                 mediaPlayer = null;
-                isPlaying = false;
+                setState(PlayerState.IDLE);
                 currentSong = null;
+                nextSong = null;
+                queue.clear();
+                nextChained = false;
+                awaitingPreloaded = false;
+                if (preloader != null) {
+                    preloader.release();
+                    preloader = null;
+                }
             } catch (IllegalStateException e) {
                 Log.e(TAG, "❌ Error al liberar MediaPlayer", e);
             }
         }
 
-        releaseWakeLock();
         abandonAudioFocus();
 
         Log.d(TAG, "✅ Recursos liberados correctamente");
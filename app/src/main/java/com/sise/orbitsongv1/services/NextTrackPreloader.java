@@ -0,0 +1,191 @@
+package com.sise.orbitsongv1.services;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.MediaPlayer;
+import android.os.PowerManager;
+import android.util.Log;
+
+import com.sise.orbitsongv1.models.Song;
+
+import java.io.IOException;
+
+/**
+ * Prepara la siguiente canción en un segundo MediaPlayer mientras suena la actual.
+ *
+ * Cuando la canción preparada pasa a reproducirse, {@link MusicPlayerService} se queda con
+ * este reproductor y devuelve el anterior con {@link #recycle(MediaPlayer)}: nunca hay más
+ * de dos instancias y ninguna se crea por canción.
+ *
+ * Los callbacks de MediaPlayer llegan al hilo que lo creó (el principal), igual que los
+ * del servicio, así que no hace falta sincronización.
+ */
+class NextTrackPreloader {
+    private static final String TAG = "NextTrackPreloader";
+
+    interface Callback {
+        void onNextPrepared(Song song);
+
+        void onNextFailed(Song song);
+    }
+
+    private final Context context;
+    private final AudioAttributes attributes;
+    private final Callback callback;
+
+    private MediaPlayer player;
+    private Song song;
+    private boolean preparing = false;
+    private boolean prepared = false;
+
+    NextTrackPreloader(Context context, AudioAttributes attributes, Callback callback) {
+        this.context = context;
+        this.attributes = attributes;
+        this.callback = callback;
+    }
+
+    /**
+     * Empieza a preparar la canción; si ya se está preparando (o está lista) no hace nada.
+     */
+    void preload(Song next) {
+        if (next == null || !next.hasPreview()) {
+            cancel();
+            return;
+        }
+        if (song != null && isSameSong(song, next)) {
+            return;
+        }
+
+        resetPlayer();
+        song = next;
+
+        try {
+            player.setOnPreparedListener(mp -> {
+                if (mp != player) return;
+                preparing = false;
+                prepared = true;
+                Log.d(TAG, "⏭️ Siguiente canción lista: " + song.getNombre());
+                callback.onNextPrepared(song);
+            });
+            player.setOnErrorListener((mp, what, extra) -> {
+                Log.w(TAG, "⚠️ Error precargando siguiente canción (what=" + what + ", extra=" + extra + ")");
+                if (mp == player) {
+                    Song failed = song;
+                    discard();
+                    callback.onNextFailed(failed);
+                }
+                return true;
+            });
+
+            PreviewAudioCache.getInstance().setDataSource(player, next.getPreviewUrl());
+            player.prepareAsync();
+            preparing = true;
+            Log.d(TAG, "⏳ Precargando siguiente canción: " + next.getNombre());
+        } catch (IOException | IllegalStateException | IllegalArgumentException e) {
+            Log.w(TAG, "⚠️ No se pudo precargar: " + next.getNombre(), e);
+            discard();
+            callback.onNextFailed(next);
+        }
+    }
+
+    boolean isPreparedFor(Song candidate) {
+        return prepared && candidate != null && isSameSong(song, candidate);
+    }
+
+    boolean isPreparingFor(Song candidate) {
+        return preparing && candidate != null && isSameSong(song, candidate);
+    }
+
+    Song getSong() {
+        return song;
+    }
+
+    /**
+     * Reproductor preparado, sin cederlo (p. ej. para setNextMediaPlayer).
+     */
+    MediaPlayer peekPrepared() {
+        return prepared ? player : null;
+    }
+
+    /**
+     * Cede el reproductor preparado; el llamador pasa a ser su dueño.
+     */
+    MediaPlayer take() {
+        if (!prepared) return null;
+
+        MediaPlayer taken = player;
+        player = null;
+        song = null;
+        prepared = false;
+        return taken;
+    }
+
+    /**
+     * Recibe el reproductor que ya no se usa para la próxima precarga.
+     */
+    void recycle(MediaPlayer spare) {
+        if (spare == null || spare == player) return;
+
+        if (player == null) {
+            spare.reset();
+            spare.setAudioAttributes(attributes);
+            player = spare;
+        } else {
+            spare.release();
+        }
+    }
+
+    /**
+     * Abandona la precarga en curso pero conserva el reproductor para reutilizarlo.
+     */
+    void cancel() {
+        if (song == null) return;
+        Log.d(TAG, "🚫 Precarga cancelada: " + song.getNombre());
+        discard();
+    }
+
+    void release() {
+        if (player != null) {
+            player.release();
+            player = null;
+        }
+        song = null;
+        preparing = false;
+        prepared = false;
+    }
+
+    // ========================================
+    // UTILIDADES
+    // ========================================
+
+    private void discard() {
+        song = null;
+        preparing = false;
+        prepared = false;
+        if (player != null) {
+            player.reset();
+            player.setAudioAttributes(attributes);
+        }
+    }
+
+    private void resetPlayer() {
+        if (player == null) {
+            player = new MediaPlayer();
+            player.setAudioAttributes(attributes);
+            // Mismo wake mode que el principal: puede pasar a serlo con la pantalla apagada
+            if (context != null) {
+                player.setWakeMode(context, PowerManager.PARTIAL_WAKE_LOCK);
+            }
+        } else if (song != null) {
+            discard();
+        }
+    }
+
+    static boolean isSameSong(Song a, Song b) {
+        if (a == null || b == null) return false;
+        if (a.getId() != null && b.getId() != null) {
+            return a.getId().equals(b.getId());
+        }
+        return a.getPreviewUrl() != null && a.getPreviewUrl().equals(b.getPreviewUrl());
+    }
+}
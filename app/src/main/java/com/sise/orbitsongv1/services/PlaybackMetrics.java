@@ -0,0 +1,234 @@
+package com.sise.orbitsongv1.services;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tiempo hasta el primer audio de playSong().
+ *
+ * Cada toque de "reproducir" abre un intento y se anotan los hitos desde el toque:
+ * setDataSource, prepareAsync, onPrepared, start() y el primer audio renderizado
+ * (MEDIA_INFO_AUDIO_RENDERING_START). Además se miden los cortes por buffering de la
+ * canción en curso. Todo se agrega en histogramas separados según el origen del audio
+ * (caché local, red o reproductor precargado) para ver el efecto de caché y precarga.
+ *
+ * Lo alimenta {@link MusicPlayerService} desde el hilo principal; el informe se exporta
+ * desde el menú de testing del reproductor.
+ */
+public class PlaybackMetrics {
+    private static final String TAG = "PlaybackMetrics";
+
+    public enum Source {
+        CACHE("Caché local"),
+        NETWORK("Red"),
+        PRELOADED("Precargada");
+
+        private final String label;
+
+        Source(String label) {
+            this.label = label;
+        }
+    }
+
+    // Hitos medidos desde el toque
+    private enum Stage {
+        DATA_SOURCE("tap → setDataSource"),
+        PREPARE_STARTED("tap → prepareAsync"),
+        PREPARED("tap → onPrepared"),
+        STARTED("tap → start()"),
+        FIRST_AUDIO("tap → primer audio");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final class SourceStats {
+        final Map<Stage, LatencyHistogram> stages = new EnumMap<>(Stage.class);
+        final LatencyHistogram stalls = new LatencyHistogram();
+        long plays = 0;
+        long abandoned = 0;
+        long errors = 0;
+
+        SourceStats() {
+            for (Stage stage : Stage.values()) {
+                stages.put(stage, new LatencyHistogram());
+            }
+        }
+    }
+
+    private static PlaybackMetrics instance;
+
+    private final Map<Source, SourceStats> stats = new EnumMap<>(Source.class);
+
+    // Intento en curso (tapAt == 0: no hay toque que medir, p. ej. avance automático)
+    private long tapAt = 0;
+    private Source source;
+    private final EnumSet<Stage> recorded = EnumSet.noneOf(Stage.class);
+    private long stallStartedAt = 0;
+
+    private PlaybackMetrics() {
+        for (Source s : Source.values()) {
+            stats.put(s, new SourceStats());
+        }
+    }
+
+    public static synchronized PlaybackMetrics getInstance() {
+        if (instance == null) {
+            instance = new PlaybackMetrics();
+        }
+        return instance;
+    }
+
+    // ========================================
+    // HITOS (llamados por MusicPlayerService)
+    // ========================================
+
+    /**
+     * El usuario pidió una canción. Si el intento anterior no llegó a sonar, cuenta como abandonado.
+     */
+    synchronized void markTap() {
+        if (tapAt != 0 && source != null && !recorded.contains(Stage.STARTED)) {
+            stats.get(source).abandoned++;
+        }
+        tapAt = SystemClock.elapsedRealtime();
+        source = null;
+        recorded.clear();
+        stallStartedAt = 0;
+    }
+
+    synchronized void markSource(Source newSource) {
+        source = newSource;
+        if (tapAt != 0) {
+            stats.get(newSource).plays++;
+        }
+    }
+
+    /**
+     * Cambio de canción sin toque (encadenada con setNextMediaPlayer): solo cuenta para cortes.
+     */
+    synchronized void markAutoAdvance(Source newSource) {
+        tapAt = 0;
+        source = newSource;
+        recorded.clear();
+        stallStartedAt = 0;
+    }
+
+    /**
+     * ✅ NUEVO: Avance automático que aún debe preparar la canción; el origen llega con markSource().
+     */
+    synchronized void markAutoAdvance() {
+        markAutoAdvance(null);
+    }
+
+    /**
+     * ✅ NUEVO: El intento en curso falló antes de sonar: cuenta como error, no como abandonado.
+     */
+    synchronized void markError() {
+        if (tapAt != 0 && source != null && !recorded.contains(Stage.STARTED)) {
+            stats.get(source).errors++;
+        }
+        tapAt = 0;
+    }
+
+    synchronized void markDataSourceSet() {
+        mark(Stage.DATA_SOURCE);
+    }
+
+    synchronized void markPrepareStarted() {
+        mark(Stage.PREPARE_STARTED);
+    }
+
+    synchronized void markPrepared() {
+        mark(Stage.PREPARED);
+    }
+
+    synchronized void markStarted() {
+        mark(Stage.STARTED);
+    }
+
+    synchronized void markFirstAudio() {
+        mark(Stage.FIRST_AUDIO);
+    }
+
+    synchronized void markStallStart() {
+        if (stallStartedAt == 0) {
+            stallStartedAt = SystemClock.elapsedRealtime();
+        }
+    }
+
+    synchronized void markStallEnd() {
+        if (stallStartedAt == 0 || source == null) return;
+        long stall = SystemClock.elapsedRealtime() - stallStartedAt;
+        stallStartedAt = 0;
+        stats.get(source).stalls.record(stall);
+        Log.d(TAG, "⏳ Corte de buffering: " + stall + "ms (" + source.label + ")");
+    }
+
+    private void mark(Stage stage) {
+        if (tapAt == 0 || source == null || recorded.contains(stage)) return;
+        long elapsed = SystemClock.elapsedRealtime() - tapAt;
+        recorded.add(stage);
+        stats.get(source).stages.get(stage).record(elapsed);
+        if (stage == Stage.FIRST_AUDIO) {
+            Log.d(TAG, "⏱️ Primer audio en " + elapsed + "ms (" + source.label + ")");
+        }
+    }
+
+    // ========================================
+    // EXPORTAR
+    // ========================================
+
+    /**
+     * Informe en texto plano con p50/p95/p99 por origen, listo para compartir.
+     */
+    public synchronized String exportReport() {
+        StringBuilder report = new StringBuilder("⏱️ Tiempo hasta el primer audio (ms)\n");
+
+        for (Source s : Source.values()) {
+            SourceStats sourceStats = stats.get(s);
+            report.append(String.format(Locale.US, "\n[%s] reproducciones=%d, abandonadas=%d, errores=%d\n",
+                    s.label, sourceStats.plays, sourceStats.abandoned, sourceStats.errors));
+
+            for (Stage stage : Stage.values()) {
+                appendLine(report, stage.label, sourceStats.stages.get(stage));
+            }
+            appendLine(report, "cortes de buffering", sourceStats.stalls);
+        }
+        return report.toString();
+    }
+
+    public synchronized void reset() {
+        for (SourceStats sourceStats : stats.values()) {
+            for (LatencyHistogram histogram : sourceStats.stages.values()) {
+                histogram.clear();
+            }
+            sourceStats.stalls.clear();
+            sourceStats.plays = 0;
+            sourceStats.abandoned = 0;
+            sourceStats.errors = 0;
+        }
+        Log.d(TAG, "🧹 Métricas de reproducción reiniciadas");
+    }
+
+    private static void appendLine(StringBuilder report, String label, LatencyHistogram histogram) {
+        if (histogram.count() == 0) {
+            report.append(String.format(Locale.US, "  %-22s sin datos\n", label));
+            return;
+        }
+        report.append(String.format(Locale.US, "  %-22s n=%d p50=%d p95=%d p99=%d max=%d\n",
+                label,
+                histogram.count(),
+                histogram.percentile(50),
+                histogram.percentile(95),
+                histogram.percentile(99),
+                histogram.max()));
+    }
+}
@@ -0,0 +1,126 @@
+package com.sise.orbitsongv1.services;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Único temporizador de progreso de la app.
+ *
+ * En cada tick lee la posición del reproductor una sola vez y la reparte entre los
+ * observadores a los que les toca según su intervalo (p. ej. 250 ms para la barra del
+ * reproductor, 1 s para pantallas que solo muestran texto). El siguiente tick se programa
+ * para el observador más próximo, y el temporizador se detiene cuando no hay ninguno
+ * registrado o cuando no se está reproduciendo.
+ *
+ * Solo se usa desde el hilo principal.
+ */
+class PlaybackProgressTicker {
+
+    // Margen para no saltarse una entrega por unos milisegundos de retraso del Handler
+    private static final long TOLERANCE_MS = 20;
+
+    private static final class Registration {
+        final MusicPlayerService.ProgressObserver observer;
+        final long intervalMs;
+        long lastDeliveredAt;
+
+        Registration(MusicPlayerService.ProgressObserver observer, long intervalMs) {
+            this.observer = observer;
+            this.intervalMs = intervalMs;
+        }
+    }
+
+    private final MusicPlayerService player;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final List<Registration> registrations = new ArrayList<>();
+    private final Runnable tick = this::tick;
+    private boolean running = false;
+
+    PlaybackProgressTicker(MusicPlayerService player) {
+        this.player = player;
+    }
+
+    void add(MusicPlayerService.ProgressObserver observer, long intervalMs) {
+        remove(observer);
+        Registration registration = new Registration(observer, intervalMs);
+        registrations.add(registration);
+
+        // Entrega inmediata para que la pantalla no espere un intervalo entero
+        registration.lastDeliveredAt = SystemClock.uptimeMillis();
+        observer.onProgress(player.getCurrentPosition(), player.getDuration());
+        update();
+    }
+
+    void remove(MusicPlayerService.ProgressObserver observer) {
+        for (int i = registrations.size() - 1; i >= 0; i--) {
+            if (registrations.get(i).observer == observer) {
+                registrations.remove(i);
+            }
+        }
+        update();
+    }
+
+    /**
+     * Arranca o detiene el temporizador según el estado del reproductor. El servicio lo
+     * llama en cada cambio de estado.
+     */
+    void update() {
+        boolean shouldRun = !registrations.isEmpty() && player.isPlaying();
+        if (shouldRun && !running) {
+            running = true;
+            handler.post(tick);
+        } else if (!shouldRun && running) {
+            running = false;
+            handler.removeCallbacks(tick);
+        }
+    }
+
+    /**
+     * Entrega la posición actual a todos ya (tras pausar o mover la barra).
+     */
+    void publishNow() {
+        if (registrations.isEmpty()) return;
+
+        long now = SystemClock.uptimeMillis();
+        int position = player.getCurrentPosition();
+        int duration = player.getDuration();
+        for (Registration registration : new ArrayList<>(registrations)) {
+            registration.lastDeliveredAt = now;
+            registration.observer.onProgress(position, duration);
+        }
+    }
+
+    private void tick() {
+        if (!running) return;
+        if (registrations.isEmpty() || !player.isPlaying()) {
+            running = false;
+            return;
+        }
+
+        long now = SystemClock.uptimeMillis();
+        int position = -1;
+        int duration = 0;
+        long nextAt = Long.MAX_VALUE;
+
+        // Copia: un observador puede darse de baja durante la entrega
+        for (Registration registration : new ArrayList<>(registrations)) {
+            if (now - registration.lastDeliveredAt >= registration.intervalMs - TOLERANCE_MS) {
+                if (position < 0) {
+                    position = player.getCurrentPosition();
+                    duration = player.getDuration();
+                }
+                registration.lastDeliveredAt = now;
+                registration.observer.onProgress(position, duration);
+            }
+            nextAt = Math.min(nextAt, registration.lastDeliveredAt + registration.intervalMs);
+        }
+
+        if (running && nextAt != Long.MAX_VALUE) {
+            handler.postAtTime(tick, nextAt);
+        }
+    }
+}
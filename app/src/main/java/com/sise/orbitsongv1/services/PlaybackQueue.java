@@ -0,0 +1,256 @@
+package com.sise.orbitsongv1.services;
+
+import com.sise.orbitsongv1.models.Song;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Cola de reproducción: la lista desde la que el usuario lanzó la canción, en orden
+ * normal o aleatorio, con modos de repetición.
+ *
+ * El orden de reproducción es un array de índices sobre la lista de canciones; siguiente y
+ * anterior solo mueven un cursor (O(1)). En aleatorio la permutación se calcula una vez
+ * (Fisher-Yates) con la canción actual en primer lugar, para que activar el modo no la corte.
+ *
+ * No es thread-safe: se usa desde el hilo principal, como MusicPlayerService.
+ */
+public class PlaybackQueue {
+
+    public enum RepeatMode {
+        OFF,  // Se detiene al final de la cola
+        ALL,  // Vuelve al principio de la cola
+        ONE   // Repite la canción actual
+    }
+
+    private final List<Song> tracks = new ArrayList<>();
+    private final Random random;
+
+    private int[] order = new int[0];  // posición de reproducción -> índice en tracks
+    private int cursor = -1;           // posición de reproducción actual
+    private boolean shuffle = false;
+    private RepeatMode repeatMode = RepeatMode.OFF;
+
+    public PlaybackQueue() {
+        this(new Random());
+    }
+
+    PlaybackQueue(Random random) {
+        this.random = random;
+    }
+
+    // ========================================
+    // CONTENIDO
+    // ========================================
+
+    /**
+     * Reemplaza la cola por las canciones reproducibles de la lista y se coloca en 'start'.
+     * La canción inicial se incluye siempre, aunque no tenga preview.
+     */
+    public void setTracks(List<Song> songs, Song start) {
+        tracks.clear();
+        int startIndex = -1;
+
+        if (songs != null) {
+            for (Song song : songs) {
+                boolean isStart = startIndex < 0 && NextTrackPreloader.isSameSong(song, start);
+                if (isStart) {
+                    startIndex = tracks.size();
+                }
+                if (isStart || (song != null && song.hasPreview())) {
+                    tracks.add(song);
+                }
+            }
+        }
+        if (startIndex < 0 && start != null) {
+            startIndex = tracks.size();
+            tracks.add(start);
+        }
+
+        buildOrder(startIndex);
+    }
+
+    /**
+     * Coloca el cursor en la canción dada. Devuelve false si no está en la cola.
+     */
+    public boolean moveTo(Song song) {
+        if (song == null || tracks.isEmpty()) return false;
+
+        // Casos habituales sin recorrer la cola: la misma canción o la siguiente
+        if (NextTrackPreloader.isSameSong(song, current())) return true;
+        int following = followingPosition(cursor);
+        if (following >= 0 && NextTrackPreloader.isSameSong(song, tracks.get(order[following]))) {
+            cursor = following;
+            return true;
+        }
+
+        for (int position = 0; position < order.length; position++) {
+            if (NextTrackPreloader.isSameSong(song, tracks.get(order[position]))) {
+                cursor = position;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void clear() {
+        tracks.clear();
+        order = new int[0];
+        cursor = -1;
+    }
+
+    public boolean isEmpty() {
+        return tracks.isEmpty();
+    }
+
+    public int size() {
+        return tracks.size();
+    }
+
+    // ========================================
+    // NAVEGACIÓN
+    // ========================================
+
+    public Song current() {
+        return cursor >= 0 && cursor < order.length ? tracks.get(order[cursor]) : null;
+    }
+
+    /**
+     * Canción que sonaría al pulsar "siguiente" (ignora REPEAT ONE).
+     */
+    public Song peekNext() {
+        int position = followingPosition(cursor);
+        return position >= 0 ? tracks.get(order[position]) : null;
+    }
+
+    /**
+     * Avanza y devuelve la nueva canción actual, o null al final de la cola.
+     *
+     * @param fromUser false cuando avanza solo al terminar la canción (respeta REPEAT ONE)
+     */
+    public Song moveToNext(boolean fromUser) {
+        if (!fromUser && repeatMode == RepeatMode.ONE) {
+            return current();
+        }
+
+        int position = followingPosition(cursor);
+        if (position < 0) return null;
+        cursor = position;
+        return current();
+    }
+
+    /**
+     * Retrocede y devuelve la nueva canción actual, o null al principio de la cola.
+     */
+    public Song moveToPrevious() {
+        if (order.length == 0) return null;
+
+        int position = cursor - 1;
+        if (position < 0) {
+            if (repeatMode != RepeatMode.ALL) return null;
+            position = order.length - 1;
+        }
+        cursor = position;
+        return current();
+    }
+
+    /**
+     * Próximas canciones en orden de reproducción (para precargar audio y carátulas).
+     */
+    public List<Song> upcoming(int count) {
+        if (order.length == 0 || count <= 0) return Collections.emptyList();
+
+        List<Song> result = new ArrayList<>(Math.min(count, order.length));
+        int position = cursor;
+        while (result.size() < count) {
+            position = followingPosition(position);
+            if (position < 0 || position == cursor) break;
+            result.add(tracks.get(order[position]));
+        }
+        return result;
+    }
+
+    // ========================================
+    // MODOS
+    // ========================================
+
+    public boolean isShuffleEnabled() {
+        return shuffle;
+    }
+
+    /**
+     * Cambia el modo aleatorio sin interrumpir la canción actual.
+     */
+    public void setShuffleEnabled(boolean enabled) {
+        if (shuffle == enabled) return;
+        shuffle = enabled;
+        buildOrder(cursor >= 0 ? order[cursor] : -1);
+    }
+
+    public RepeatMode getRepeatMode() {
+        return repeatMode;
+    }
+
+    public void setRepeatMode(RepeatMode mode) {
+        repeatMode = mode != null ? mode : RepeatMode.OFF;
+    }
+
+    /**
+     * OFF -> ALL -> ONE -> OFF, como en el botón del reproductor.
+     */
+    public RepeatMode cycleRepeatMode() {
+        RepeatMode[] modes = RepeatMode.values();
+        repeatMode = modes[(repeatMode.ordinal() + 1) % modes.length];
+        return repeatMode;
+    }
+
+    // ========================================
+    // UTILIDADES
+    // ========================================
+
+    /**
+     * Recalcula el orden de reproducción dejando el cursor sobre tracks[currentIndex].
+     */
+    private void buildOrder(int currentIndex) {
+        int size = tracks.size();
+        order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+
+        if (currentIndex < 0 || currentIndex >= size) {
+            cursor = size > 0 ? 0 : -1;
+            if (shuffle) shuffleFrom(0);
+            return;
+        }
+
+        if (shuffle) {
+            // La actual primero; el resto en orden aleatorio detrás
+            order[currentIndex] = 0;
+            order[0] = currentIndex;
+            shuffleFrom(1);
+            cursor = 0;
+        } else {
+            cursor = currentIndex;
+        }
+    }
+
+    private void shuffleFrom(int from) {
+        for (int i = order.length - 1; i > from; i--) {
+            int j = from + random.nextInt(i - from + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+    }
+
+    private int followingPosition(int position) {
+        if (order.length == 0 || position < 0) return -1;
+
+        int following = position + 1;
+        if (following < order.length) return following;
+        return repeatMode == RepeatMode.ALL ? 0 : -1;
+    }
+}
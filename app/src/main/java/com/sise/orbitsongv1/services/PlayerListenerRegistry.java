@@ -0,0 +1,88 @@
+package com.sise.orbitsongv1.services;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Observadores del MusicPlayerService.
+ *
+ * - Guarda referencias débiles: una activity destruida que olvidó darse de baja no
+ *   queda retenida y se descarta en la siguiente entrega.
+ * - Entrega siempre en el hilo principal (inmediatamente si ya se está en él).
+ */
+class PlayerListenerRegistry {
+
+    interface Event {
+        void deliver(MusicPlayerService.MusicPlayerListener listener);
+    }
+
+    private final List<WeakReference<MusicPlayerService.MusicPlayerListener>> listeners = new CopyOnWriteArrayList<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Devuelve false si ya estaba registrado.
+     */
+    boolean add(MusicPlayerService.MusicPlayerListener listener) {
+        if (listener == null || contains(listener)) return false;
+        listeners.add(new WeakReference<>(listener));
+        return true;
+    }
+
+    void remove(MusicPlayerService.MusicPlayerListener listener) {
+        for (WeakReference<MusicPlayerService.MusicPlayerListener> ref : listeners) {
+            MusicPlayerService.MusicPlayerListener registered = ref.get();
+            if (registered == null || registered == listener) {
+                listeners.remove(ref);
+            }
+        }
+    }
+
+    void dispatch(Event event) {
+        runOnMain(() -> {
+            for (WeakReference<MusicPlayerService.MusicPlayerListener> ref : listeners) {
+                MusicPlayerService.MusicPlayerListener listener = ref.get();
+                if (listener == null) {
+                    listeners.remove(ref);
+                } else {
+                    event.deliver(listener);
+                }
+            }
+        });
+    }
+
+    /**
+     * Entrega un evento a un único observador (p. ej. el estado actual al registrarse).
+     */
+    void deliverTo(MusicPlayerService.MusicPlayerListener listener, Event event) {
+        WeakReference<MusicPlayerService.MusicPlayerListener> ref = new WeakReference<>(listener);
+        runOnMain(() -> {
+            MusicPlayerService.MusicPlayerListener target = ref.get();
+            if (target != null) {
+                event.deliver(target);
+            }
+        });
+    }
+
+    int size() {
+        return listeners.size();
+    }
+
+    private boolean contains(MusicPlayerService.MusicPlayerListener listener) {
+        for (WeakReference<MusicPlayerService.MusicPlayerListener> ref : listeners) {
+            if (ref.get() == listener) return true;
+        }
+        return false;
+    }
+
+    private void runOnMain(Runnable action) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            action.run();
+        } else {
+            mainHandler.post(action);
+        }
+    }
+}
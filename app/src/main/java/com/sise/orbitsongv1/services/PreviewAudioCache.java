@@ -0,0 +1,220 @@
+package com.sise.orbitsongv1.services;
+
+import android.content.Context;
+import android.media.MediaPlayer;
+import android.util.Log;
+
+import com.sise.orbitsongv1.utils.Constants;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * Caché LRU en disco de los previews de audio (clips de 30 s de p.scdn.co).
+ *
+ * - Si el clip ya está guardado, el reproductor lo lee del archivo local.
+ * - Si no, se reproduce a través de {@link CachingMediaDataSource}, que lo descarga una sola
+ *   vez y lo va escribiendo en disco mientras suena; al completarse queda en la caché.
+ * - El tamaño total se limita borrando primero los clips usados hace más tiempo
+ *   (la fecha de modificación se actualiza en cada uso).
+ */
+public class PreviewAudioCache {
+    private static final String TAG = "PreviewAudioCache";
+    private static final String COMPLETE_SUFFIX = ".audio";
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    private static PreviewAudioCache instance;
+
+    private File directory;
+    private OkHttpClient client;
+
+    // Descargas en curso (una por clip)
+    private final Set<String> downloading = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    private PreviewAudioCache() {
+    }
+
+    public static synchronized PreviewAudioCache getInstance() {
+        if (instance == null) {
+            instance = new PreviewAudioCache();
+        }
+        return instance;
+    }
+
+    public void initialize(Context context) {
+        directory = new File(context.getApplicationContext().getCacheDir(), Constants.PREVIEW_AUDIO_CACHE_DIR);
+
+        // Cliente propio: los clips son de un CDN externo y no deben llevar el token del backend
+        client = new OkHttpClient.Builder()
+                .connectTimeout(Constants.CONNECT_TIMEOUT, TimeUnit.SECONDS)
+                .readTimeout(Constants.READ_TIMEOUT, TimeUnit.SECONDS)
+                .build();
+
+        removePartialFiles();
+    }
+
+    /**
+     * Configura la fuente de audio del reproductor pasando por la caché.
+     * Sin inicializar (o si el clip ya se está descargando) usa la URL directamente.
+     */
+    public void setDataSource(MediaPlayer player, String url) throws IOException {
+        if (directory == null || client == null) {
+            player.setDataSource(url);
+            return;
+        }
+
+        String key = keyFor(url);
+        File cached = completeFileFor(key);
+        if (cached.exists()) {
+            hitCount.incrementAndGet();
+            cached.setLastModified(System.currentTimeMillis());
+            Log.d(TAG, "💾 Preview desde caché local: " + cached.getName());
+            player.setDataSource(cached.getAbsolutePath());
+            return;
+        }
+
+        missCount.incrementAndGet();
+        if (!downloading.add(key)) {
+            Log.d(TAG, "⏳ Preview ya en descarga, usando streaming directo");
+            player.setDataSource(url);
+            return;
+        }
+
+        try {
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("No se pudo crear " + directory);
+            }
+            player.setDataSource(new CachingMediaDataSource(this, client, url, key));
+            Log.d(TAG, "🌐 Preview desde red, guardando en caché: " + key);
+        } catch (IOException | RuntimeException e) {
+            downloading.remove(key);
+            throw e;
+        }
+    }
+
+    public boolean isCached(String url) {
+        return directory != null && url != null && completeFileFor(keyFor(url)).exists();
+    }
+
+    // ========================================
+    // USADO POR CachingMediaDataSource
+    // ========================================
+
+    File partialFileFor(String key) {
+        return new File(directory, key + PARTIAL_SUFFIX);
+    }
+
+    /**
+     * Llamado desde el hilo de descarga al terminar, con éxito o no.
+     */
+    void onDownloadFinished(String key, File partial, boolean complete) {
+        try {
+            if (complete && partial.renameTo(completeFileFor(key))) {
+                Log.d(TAG, "✅ Preview guardado en caché: " + key);
+                trimToSize();
+            } else {
+                partial.delete();
+            }
+        } finally {
+            downloading.remove(key);
+        }
+    }
+
+    // ========================================
+    // LRU
+    // ========================================
+
+    private synchronized void trimToSize() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(COMPLETE_SUFFIX));
+        if (files == null) return;
+
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= Constants.PREVIEW_AUDIO_CACHE_BYTES) return;
+
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            if (total <= Constants.PREVIEW_AUDIO_CACHE_BYTES) break;
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+                evictionCount.incrementAndGet();
+            }
+        }
+        Log.d(TAG, "🧹 Caché de previews recortada a " + (total / 1024) + "KB");
+    }
+
+    /**
+     * Restos de descargas interrumpidas por la muerte del proceso.
+     */
+    private void removePartialFiles() {
+        File[] partials = directory.listFiles((dir, name) -> name.endsWith(PARTIAL_SUFFIX));
+        if (partials == null) return;
+
+        for (File partial : partials) {
+            partial.delete();
+        }
+    }
+
+    private File completeFileFor(String key) {
+        return new File(directory, key + COMPLETE_SUFFIX);
+    }
+
+    private static String keyFor(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16))
+                        .append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(url.hashCode());
+        }
+    }
+
+    // ========================================
+    // ESTADÍSTICAS
+    // ========================================
+
+    public String getStatsSummary() {
+        File[] files = directory != null
+                ? directory.listFiles((dir, name) -> name.endsWith(COMPLETE_SUFFIX))
+                : null;
+
+        long size = 0;
+        int count = 0;
+        if (files != null) {
+            count = files.length;
+            for (File file : files) {
+                size += file.length();
+            }
+        }
+
+        return String.format(java.util.Locale.US,
+                "🎧 Preview cache: hits=%d, misses=%d, evictions=%d, clips=%d, size=%dKB/%dKB",
+                hitCount.get(),
+                missCount.get(),
+                evictionCount.get(),
+                count,
+                size / 1024,
+                Constants.PREVIEW_AUDIO_CACHE_BYTES / 1024);
+    }
+}
@@ -1,15 +1,19 @@
 package com.sise.orbitsongv1.services;
 
+import android.content.Context;
+import android.util.Log;
+
 import com.sise.orbitsongv1.utils.Constants;
 
+import okhttp3.Cache;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
-import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.concurrent.TimeUnit;
 
@@ -19,12 +23,19 @@ public class RetrofitClient {
     public static final String BASE_URL = Constants.BASE_URL;
 
     private static RetrofitClient instance;
+    private static File cacheDirectory;
     private Retrofit retrofit;
+    private ApiService apiService;
+    private HttpCachePolicy cachePolicy;
+
+    // ✅ NUEVO: Debe llamarse antes del primer getInstance() para habilitar la caché HTTP en disco
+    public static synchronized void initialize(Context context) {
+        cacheDirectory = new File(context.getApplicationContext().getCacheDir(), Constants.HTTP_CACHE_DIR);
+    }
 
     private RetrofitClient() {
-        // Interceptor para logging (útil para debug)
-        HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
-        loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
+        // ✅ NUEVO: Logging según build y endpoint (tiempos muestreados, nunca cuerpos)
+        HttpLogPolicy logPolicy = HttpLogPolicy.forCurrentBuild();
 
         // Interceptor para headers
         Interceptor headerInterceptor = new Interceptor() {
@@ -40,23 +51,55 @@ public class RetrofitClient {
             }
         };
 
+        // ✅ NUEVO: Cabecera Authorization desde el token en memoria
+        Interceptor authInterceptor = chain -> {
+            Request original = chain.request();
+            String authorization = AuthTokenHolder.getInstance().getAuthorizationHeader();
+            if (authorization == null
+                    || original.header("Authorization") != null
+                    || original.url().encodedPath().startsWith("/api/auth/")) {
+                return chain.proceed(original);
+            }
+            return chain.proceed(original.newBuilder()
+                    .header("Authorization", authorization)
+                    .build());
+        };
+
+        // ✅ NUEVO: Caché HTTP en disco con revalidación condicional (ETag / Last-Modified)
+        Cache cache = cacheDirectory != null
+                ? new Cache(cacheDirectory, Constants.HTTP_CACHE_SIZE_BYTES)
+                : null;
+        cachePolicy = new HttpCachePolicy(cache);
+
         // Cliente HTTP con timeouts
         OkHttpClient client = new OkHttpClient.Builder()
+                .cache(cache)
                 .addInterceptor(headerInterceptor)
-                .addInterceptor(loggingInterceptor)
+                .addInterceptor(authInterceptor)
+                .addInterceptor(cachePolicy.applicationInterceptor())
+                .addInterceptor(logPolicy.headersInterceptor())
+                .addNetworkInterceptor(cachePolicy.networkInterceptor())
+                .eventListenerFactory(HttpTimingEventListener.factory(logPolicy))
                 .connectTimeout(Constants.CONNECT_TIMEOUT, TimeUnit.SECONDS)
                 .readTimeout(Constants.READ_TIMEOUT, TimeUnit.SECONDS)
                 .writeTimeout(Constants.WRITE_TIMEOUT, TimeUnit.SECONDS)
                 .build();
+        cachePolicy.attach(client);
 
         // Retrofit instance
         retrofit = new Retrofit.Builder()
                 .baseUrl(Constants.BASE_URL)
                 .client(client)
-                .addConverterFactory(GsonConverterFactory.create())
+                .addConverterFactory(TimedConverterFactory.wrap(GsonConverterFactory.create(GsonProvider.getGson())))
                 .build();
 
+        // ✅ NUEVO: Un único proxy para toda la app
+        apiService = retrofit.create(ApiService.class);
+
         System.out.println("🔍 DEBUG: RetrofitClient inicializado con URL: " + Constants.BASE_URL);
+        if (cache == null) {
+            Log.w("RetrofitClient", "⚠️ RetrofitClient sin caché HTTP (initialize() no fue llamado)");
+        }
     }
 
     public static synchronized RetrofitClient getInstance() {
@@ -67,6 +110,11 @@ public class RetrofitClient {
     }
 
     public ApiService getApiService() {
-        return retrofit.create(ApiService.class);
+        return apiService;
+    }
+
+    // ✅ NUEVO: Contadores de la caché HTTP (hits, red, 304...) para verificar el ahorro
+    public HttpCachePolicy getCachePolicy() {
+        return cachePolicy;
     }
-}
\ No newline at end of file
+}
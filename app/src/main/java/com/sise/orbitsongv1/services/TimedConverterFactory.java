@@ -0,0 +1,61 @@
+package com.sise.orbitsongv1.services;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * Envuelve otro Converter.Factory (Gson) y mide cuánto tarda en parsear cada respuesta.
+ *
+ * El tiempo se entrega al {@link HttpTimingEventListener} de la llamada, que lo añade a su
+ * línea de log. Las llamadas no muestreadas no pagan más que una lectura de ThreadLocal.
+ */
+public class TimedConverterFactory extends Converter.Factory {
+
+    private final Converter.Factory delegate;
+
+    private TimedConverterFactory(Converter.Factory delegate) {
+        this.delegate = delegate;
+    }
+
+    public static TimedConverterFactory wrap(Converter.Factory delegate) {
+        return new TimedConverterFactory(delegate);
+    }
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+        Converter<ResponseBody, ?> converter = delegate.responseBodyConverter(type, annotations, retrofit);
+        if (converter == null) {
+            return null;
+        }
+
+        return body -> {
+            HttpTimingEventListener timing = HttpTimingEventListener.takeCurrent();
+            if (timing == null) {
+                return converter.convert(body);
+            }
+
+            long start = System.nanoTime();
+            try {
+                return converter.convert(body);
+            } finally {
+                timing.onParseFinished(System.nanoTime() - start);
+            }
+        };
+    }
+
+    @Override
+    public Converter<?, RequestBody> requestBodyConverter(Type type, Annotation[] parameterAnnotations,
+                                                          Annotation[] methodAnnotations, Retrofit retrofit) {
+        return delegate.requestBodyConverter(type, parameterAnnotations, methodAnnotations, retrofit);
+    }
+
+    @Override
+    public Converter<?, String> stringConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+        return delegate.stringConverter(type, annotations, retrofit);
+    }
+}
@@ -0,0 +1,110 @@
+package com.sise.orbitsongv1.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Ejecuta cálculos sobre listas de canciones (filtros, estadísticas...) fuera del hilo
+ * principal y entrega el resultado en él.
+ *
+ * Cada trabajo lleva una clave: lanzar uno nuevo con la misma clave cancela el anterior y
+ * descarta su resultado aunque ya estuviera calculado, así solo se pinta el último filtro.
+ * Todas las instancias comparten un único hilo de fondo, por lo que los trabajos se
+ * ejecutan en orden y las estructuras que solo se tocan desde ellos (p. ej. el índice de
+ * búsqueda) no necesitan sincronización.
+ *
+ * Una instancia por pantalla; usar desde el hilo principal y llamar a {@link #cancelAll()}
+ * en onDestroy().
+ */
+public class ComputationRunner {
+    private static final String TAG = "ComputationRunner";
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, "orbitsong-compute");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public interface ResultCallback<T> {
+        void onResult(T result);
+    }
+
+    private static final class Job {
+        volatile boolean cancelled;
+        Future<?> future;
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Map<String, Job> jobs = new HashMap<>();
+
+    /**
+     * @param key      trabajos con la misma clave se sustituyen entre sí
+     * @param task     cálculo a ejecutar en segundo plano
+     * @param callback recibe el resultado en el hilo principal (puede ser null)
+     */
+    public <T> void run(String key, Callable<T> task, ResultCallback<T> callback) {
+        cancel(key);
+
+        Job job = new Job();
+        jobs.put(key, job);
+
+        job.future = EXECUTOR.submit(() -> {
+            if (job.cancelled) return;
+
+            T result;
+            try {
+                result = task.call();
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error en cálculo '" + key + "'", e);
+                mainHandler.post(() -> finish(key, job));
+                return;
+            }
+
+            mainHandler.post(() -> {
+                if (finish(key, job) && callback != null) {
+                    callback.onResult(result);
+                }
+            });
+        });
+    }
+
+    public void cancel(String key) {
+        Job previous = jobs.remove(key);
+        if (previous != null) {
+            previous.cancelled = true;
+            // Sin interrumpir: un cálculo a medias podría dejar estructuras compartidas incoherentes
+            previous.future.cancel(false);
+        }
+    }
+
+    public void cancelAll() {
+        for (Job job : jobs.values()) {
+            job.cancelled = true;
+            job.future.cancel(false);
+        }
+        jobs.clear();
+    }
+
+    /**
+     * @return true si el trabajo sigue vigente y su resultado debe entregarse
+     */
+    private boolean finish(String key, Job job) {
+        if (job.cancelled || jobs.get(key) != job) {
+            return false;
+        }
+        jobs.remove(key);
+        return true;
+    }
+}
@@ -29,4 +29,22 @@ public class Constants {
     public static final int CONNECT_TIMEOUT = 30;
     public static final int READ_TIMEOUT = 30;
     public static final int WRITE_TIMEOUT = 30;
+
+    // Caché HTTP (OkHttp) en disco
+    public static final String HTTP_CACHE_DIR = "http_cache";
+    public static final long HTTP_CACHE_SIZE_BYTES = 20L * 1024 * 1024; // 20 MB
+    public static final int HTTP_STALE_WHILE_REVALIDATE_SECONDS = 60;
+    public static final int HTTP_STALE_IF_ERROR_SECONDS = 7 * 24 * 60 * 60; // 1 semana
+
+    // Caché local del catálogo de canciones
+    public static final String CATALOG_CACHE_DIR = "song_catalog";
+
+    // Caché de carátulas (Glide) en disco
+    public static final String GLIDE_DISK_CACHE_DIR = "album_art";
+    public static final long GLIDE_DISK_CACHE_BYTES = 150L * 1024 * 1024; // 150 MB
+    public static final long GLIDE_DISK_CACHE_LOW_RAM_BYTES = 50L * 1024 * 1024; // 50 MB
+
+    // Caché de previews de audio en disco
+    public static final String PREVIEW_AUDIO_CACHE_DIR = "preview_audio";
+    public static final long PREVIEW_AUDIO_CACHE_BYTES = 50L * 1024 * 1024; // 50 MB (~150 previews)
 }
\ No newline at end of file
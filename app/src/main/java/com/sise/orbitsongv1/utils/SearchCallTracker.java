@@ -0,0 +1,71 @@
+package com.sise.orbitsongv1.utils;
+
+import android.util.Log;
+
+import retrofit2.Call;
+
+/**
+ * Lleva la cuenta de la búsqueda HTTP en curso de una pantalla.
+ *
+ * Cada búsqueda nueva recibe un número de generación y cancela la anterior, así una
+ * respuesta tardía nunca sobrescribe resultados más nuevos ni sigue descargando datos
+ * que ya no se van a mostrar. Debe usarse solo desde el hilo principal (los callbacks
+ * de Retrofit llegan ahí).
+ */
+public class SearchCallTracker {
+    private static final String TAG = "SearchCallTracker";
+
+    private long generation = 0;
+    private Call<?> inFlight;
+
+    /**
+     * Registra y lanza la generación de una nueva búsqueda, cancelando la que esté en curso.
+     *
+     * @return id de generación que el callback debe comprobar con {@link #finish(long)}
+     */
+    public long begin(Call<?> call) {
+        cancelInFlight();
+        inFlight = call;
+        return ++generation;
+    }
+
+    /**
+     * Marca como terminada la búsqueda de esa generación.
+     *
+     * @return false si la respuesta pertenece a una búsqueda ya superada y debe descartarse
+     */
+    public boolean finish(long callGeneration) {
+        if (callGeneration != generation) {
+            Log.d(TAG, "🗑️ Respuesta descartada (generación " + callGeneration + " < " + generation + ")");
+            return false;
+        }
+        inFlight = null;
+        return true;
+    }
+
+    /**
+     * Cancela la búsqueda en curso y descarta cualquier respuesta pendiente.
+     *
+     * @return true si había una búsqueda en curso
+     */
+    public boolean cancel() {
+        boolean hadInFlight = cancelInFlight();
+        generation++;
+        return hadInFlight;
+    }
+
+    public boolean isSearching() {
+        return inFlight != null;
+    }
+
+    private boolean cancelInFlight() {
+        if (inFlight == null) return false;
+
+        if (!inFlight.isCanceled()) {
+            Log.d(TAG, "✋ Cancelando búsqueda superada: " + inFlight.request().url().encodedPath());
+            inFlight.cancel();
+        }
+        inFlight = null;
+        return true;
+    }
+}
@@ -0,0 +1,66 @@
+package com.sise.orbitsongv1.utils;
+
+import com.sise.orbitsongv1.models.Song;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Filtrado local por teclado sobre un {@link SongSearchIndex}.
+ *
+ * Si la nueva consulta contiene a la anterior ("bad" → "badb" → "badbu"), cualquier
+ * resultado nuevo ya estaba entre los anteriores, así que solo se revisan esos. Cuando la
+ * consulta se acorta o cambia, o el índice se modificó, se vuelve a consultar el índice.
+ */
+public class SongFilterEngine {
+
+    private final SongSearchIndex index;
+
+    private String lastQuery = "";
+    private int[] lastSlots;
+    private int lastVersion;
+    private boolean lastNarrowed = false;
+
+    public SongFilterEngine(SongSearchIndex index) {
+        this.index = index;
+    }
+
+    public List<Song> filter(String query) {
+        String q = SongSearchIndex.normalizeQuery(query);
+        if (q.isEmpty()) {
+            reset();
+            return Collections.emptyList();
+        }
+
+        boolean canNarrow = lastSlots != null
+                && lastVersion == index.version()
+                && q.contains(lastQuery);
+
+        int[] slots = canNarrow
+                ? index.rankWithin(lastSlots, q)
+                : index.searchSlots(q);
+
+        lastQuery = q;
+        lastSlots = slots;
+        lastVersion = index.version();
+        lastNarrowed = canNarrow;
+
+        return index.songsAt(slots);
+    }
+
+    /**
+     * Olvida la última consulta (p. ej. al limpiar la búsqueda o recargar el catálogo).
+     */
+    public void reset() {
+        lastQuery = "";
+        lastSlots = null;
+        lastNarrowed = false;
+    }
+
+    /**
+     * @return true si la última llamada a {@link #filter(String)} reutilizó los resultados anteriores
+     */
+    public boolean isLastQueryNarrowed() {
+        return lastNarrowed;
+    }
+}
@@ -0,0 +1,380 @@
+package com.sise.orbitsongv1.utils;
+
+import com.sise.orbitsongv1.models.Song;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Índice invertido en memoria para buscar canciones por nombre, artista o álbum.
+ *
+ * - Los campos se pasan a minúsculas una sola vez al indexar, no en cada tecla.
+ * - Cada trigrama apunta a la lista (ordenada) de canciones que lo contienen; una consulta
+ *   intersecta las listas de sus trigramas y solo verifica con contains() a los candidatos.
+ * - Consultas de 1-2 caracteres no tienen trigramas: se resuelven con un recorrido lineal
+ *   sobre los campos ya normalizados.
+ * - Resultados ordenados por campo (nombre que empieza por la consulta > nombre > artista
+ *   > álbum) y después por popularidad.
+ *
+ * No es thread-safe: usar desde un único hilo.
+ */
+public class SongSearchIndex {
+
+    private static final int GRAM = 3;
+
+    // Orden de relevancia según el campo donde aparece la consulta
+    private static final int RANK_NAME_PREFIX = 0;
+    private static final int RANK_NAME = 1;
+    private static final int RANK_ARTIST = 2;
+    private static final int RANK_ALBUM = 3;
+    private static final int NO_MATCH = -1;
+
+    private static final class Entry {
+        final String key;
+        Song song;     // Se sustituye si cambia algo que no se indexa (portada, preview...)
+        final String name;
+        final String artists;
+        final String album;
+        final double popularity;
+        boolean alive = true;
+
+        Entry(String key, Song song) {
+            this.key = key;
+            this.song = song;
+            this.name = normalize(song.getNombre());
+            this.artists = normalize(song.getArtistasString());
+            this.album = normalize(song.getAlbum());
+            this.popularity = song.getPopularidad() != null ? song.getPopularidad() : 0.0;
+        }
+
+        int rank(String query) {
+            if (name.startsWith(query)) return RANK_NAME_PREFIX;
+            if (name.contains(query)) return RANK_NAME;
+            if (artists.contains(query)) return RANK_ARTIST;
+            if (album.contains(query)) return RANK_ALBUM;
+            return NO_MATCH;
+        }
+
+        // Mismos campos indexados y misma popularidad (lo que afecta a búsqueda y orden)
+        boolean sameIndexedText(Song other) {
+            return name.equals(normalize(other.getNombre()))
+                    && artists.equals(normalize(other.getArtistasString()))
+                    && album.equals(normalize(other.getAlbum()))
+                    && popularity == (other.getPopularidad() != null ? other.getPopularidad() : 0.0);
+        }
+    }
+
+    /**
+     * Lista de posiciones creciente y sin boxing.
+     */
+    private static final class Postings {
+        int[] slots = new int[4];
+        int size;
+
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, Integer> slotByKey = new HashMap<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private int deadCount = 0;
+    private int version = 0;
+    private int syntheticKeys = 0;
+
+    // ========================================
+    // CONSTRUCCIÓN Y ACTUALIZACIÓN
+    // ========================================
+
+    /**
+     * Descarta el índice actual e indexa la lista completa.
+     */
+    public void rebuild(List<Song> songs) {
+        entries.clear();
+        slotByKey.clear();
+        postings.clear();
+        deadCount = 0;
+        version++;
+        if (songs == null) return;
+
+        for (Song song : songs) {
+            add(song);
+        }
+    }
+
+    /**
+     * Actualiza el índice para que refleje la lista dada tocando solo lo que cambió:
+     * canciones nuevas o modificadas se (re)indexan y las que ya no están se eliminan.
+     */
+    public void sync(List<Song> songs) {
+        if (songs == null) {
+            rebuild(null);
+            return;
+        }
+
+        Set<String> present = new HashSet<>(songs.size() * 2);
+        for (Song song : songs) {
+            String key = keyOf(song);
+            if (key == null) {
+                // Sin id: se reindexa con una clave sintética nueva, que también cuenta como presente
+                present.add(index(song));
+                continue;
+            }
+            present.add(key);
+
+            Integer slot = slotByKey.get(key);
+            if (slot == null) {
+                add(song);
+                continue;
+            }
+            Entry entry = entries.get(slot);
+            if (entry.song.hasSameContent(song)) continue;
+            if (entry.sameIndexedText(song)) {
+                // ✅ MODIFICADO: Solo cambió portada/preview/duración: misma posición, instancia nueva
+                entry.song = song;
+            } else {
+                add(song);
+            }
+        }
+
+        for (String key : new ArrayList<>(slotByKey.keySet())) {
+            if (!present.contains(key)) {
+                removeKey(key);
+            }
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Indexa una canción; si ya existía (mismo id) la reemplaza.
+     */
+    public void add(Song song) {
+        if (song == null) return;
+        index(song);
+    }
+
+    /**
+     * @return la clave con la que quedó indexada (sintética "#N" si la canción no tiene id)
+     */
+    private String index(Song song) {
+        String key = keyOf(song);
+        if (key == null) {
+            key = "#" + (syntheticKeys++);
+        } else {
+            removeKey(key);
+        }
+
+        int slot = entries.size();
+        Entry entry = new Entry(key, song);
+        entries.add(entry);
+        version++;
+        slotByKey.put(key, slot);
+
+        Set<String> grams = new HashSet<>();
+        collectGrams(entry.name, grams);
+        collectGrams(entry.artists, grams);
+        collectGrams(entry.album, grams);
+        for (String gram : grams) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                list = new Postings();
+                postings.put(gram, list);
+            }
+            list.add(slot);
+        }
+        return key;
+    }
+
+    public void remove(Song song) {
+        String key = song != null ? keyOf(song) : null;
+        if (key != null) {
+            removeKey(key);
+            compactIfNeeded();
+        }
+    }
+
+    public int size() {
+        return slotByKey.size();
+    }
+
+    // ========================================
+    // CONSULTAS
+    // ========================================
+
+    public List<Song> search(String query) {
+        return songsAt(searchSlots(normalizeQuery(query)));
+    }
+
+    /**
+     * Posiciones de las canciones que contienen la consulta (ya normalizada), ordenadas
+     * por relevancia. Válidas mientras no cambie {@link #version()}.
+     */
+    int[] searchSlots(String q) {
+        if (q.isEmpty() || slotByKey.isEmpty()) {
+            return new int[0];
+        }
+
+        if (q.length() < GRAM) {
+            // Sin trigramas: recorrido lineal, pero sobre campos ya normalizados
+            int[] all = new int[entries.size()];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = i;
+            }
+            return rankWithin(all, q);
+        }
+        return rankWithin(candidatesFor(q), q);
+    }
+
+    /**
+     * Igual que {@link #searchSlots(String)} pero solo entre las posiciones dadas,
+     * p. ej. los resultados de una consulta contenida en esta.
+     */
+    int[] rankWithin(int[] slots, String q) {
+        // Solo arrays del tamaño de los candidatos: al refinar no se toca el resto del catálogo
+        int[] matched = new int[slots.length];
+        int[] ranks = new int[slots.length];
+        int count = 0;
+
+        for (int slot : slots) {
+            Entry entry = entries.get(slot);
+            if (!entry.alive) continue;
+            int rank = entry.rank(q);
+            if (rank != NO_MATCH) {
+                matched[count] = slot;
+                ranks[count] = rank;
+                count++;
+            }
+        }
+
+        // Orden estable: a igual campo y popularidad se conserva el orden del catálogo
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int byRank = Integer.compare(ranks[a], ranks[b]);
+            if (byRank != 0) return byRank;
+            int byPopularity = Double.compare(entries.get(matched[b]).popularity, entries.get(matched[a]).popularity);
+            if (byPopularity != 0) return byPopularity;
+            return Integer.compare(matched[a], matched[b]);
+        });
+
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = matched[order[i]];
+        }
+        return result;
+    }
+
+    List<Song> songsAt(int[] slots) {
+        List<Song> result = new ArrayList<>(slots.length);
+        for (int slot : slots) {
+            result.add(entries.get(slot).song);
+        }
+        return result;
+    }
+
+    /**
+     * Cambia cada vez que se modifica el índice; invalida las posiciones ya devueltas.
+     */
+    int version() {
+        return version;
+    }
+
+    private int[] candidatesFor(String q) {
+        Set<String> grams = new HashSet<>();
+        collectGrams(q, grams);
+
+        Postings[] lists = new Postings[grams.size()];
+        int i = 0;
+        for (String gram : grams) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return new int[0];
+            }
+            lists[i++] = list;
+        }
+
+        // Intersectar empezando por la lista más corta
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        int[] result = Arrays.copyOf(lists[0].slots, lists[0].size);
+        int resultSize = result.length;
+
+        for (int l = 1; l < lists.length && resultSize > 0; l++) {
+            Postings other = lists[l];
+            int a = 0;
+            int b = 0;
+            int out = 0;
+            while (a < resultSize && b < other.size) {
+                int x = result[a];
+                int y = other.slots[b];
+                if (x == y) {
+                    result[out++] = x;
+                    a++;
+                    b++;
+                } else if (x < y) {
+                    a++;
+                } else {
+                    b++;
+                }
+            }
+            resultSize = out;
+        }
+
+        return Arrays.copyOf(result, resultSize);
+    }
+
+    // ========================================
+    // UTILIDADES
+    // ========================================
+
+    private void removeKey(String key) {
+        Integer slot = slotByKey.remove(key);
+        if (slot != null) {
+            // Las listas de trigramas se limpian al compactar
+            entries.get(slot).alive = false;
+            deadCount++;
+            version++;
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (deadCount > 64 && deadCount > entries.size() / 2) {
+            List<Song> alive = new ArrayList<>(slotByKey.size());
+            for (Entry entry : entries) {
+                if (entry.alive) alive.add(entry.song);
+            }
+            rebuild(alive);
+        }
+    }
+
+    private static String keyOf(Song song) {
+        if (song.getId() != null) return song.getId();
+        return song.getSpotifyId() != null ? "spotify:" + song.getSpotifyId() : null;
+    }
+
+    private static void collectGrams(String text, Set<String> out) {
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            out.add(text.substring(i, i + GRAM));
+        }
+    }
+
+    static String normalizeQuery(String query) {
+        return normalize(query).trim();
+    }
+
+    static String normalize(String value) {
+        return Objects.toString(value, "").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,93 @@
+package com.sise.orbitsongv1.models;
+
+import com.google.gson.Gson;
+import com.sise.orbitsongv1.services.GsonProvider;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Comparativa en JVM de los TypeAdapters escritos a mano frente al Gson por reflexión,
+ * sobre un catálogo de 10.000 canciones: el adaptador a mano debe asignar menos memoria;
+ * los tiempos se imprimen como referencia.
+ *
+ * Tarda varios segundos, así que no corre con los tests normales: quitar el @Ignore
+ * para ejecutarla a mano.
+ */
+@Ignore("Benchmark: ejecutar a mano")
+public class SongTypeAdapterBenchmarkTest {
+
+    private static final int SONG_COUNT = 10_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    private static final Type SONG_LIST_TYPE = SongTypeAdapterTest.SONG_LIST_TYPE;
+
+    @Test
+    public void handWrittenAdapter_allocatesLessThanReflection() {
+        String json = SongTypeAdapterTest.buildCatalog(SONG_COUNT);
+        Gson reflectiveGson = new Gson();
+        Gson handWrittenGson = GsonProvider.getGson();
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            reflectiveGson.fromJson(json, SONG_LIST_TYPE);
+            handWrittenGson.fromJson(json, SONG_LIST_TYPE);
+        }
+
+        Measurement reflective = measure(reflectiveGson, json);
+        Measurement handWritten = measure(handWrittenGson, json);
+
+        System.out.println(String.format(Locale.US,
+                "⏱️ %d canciones: reflexión %.2f ms / %d KB, a mano %.2f ms / %d KB",
+                SONG_COUNT,
+                reflective.bestNanos / 1e6, reflective.allocatedBytes / 1024,
+                handWritten.bestNanos / 1e6, handWritten.allocatedBytes / 1024));
+
+        if (reflective.allocatedBytes >= 0 && handWritten.allocatedBytes >= 0) {
+            assertTrue("El adaptador a mano no asigna menos memoria que la reflexión",
+                    handWritten.allocatedBytes < reflective.allocatedBytes);
+        }
+    }
+
+    // ========================================
+    // UTILIDADES
+    // ========================================
+
+    private static final class Measurement {
+        long bestNanos = Long.MAX_VALUE;
+        long allocatedBytes = -1;   // -1 si la JVM no permite medirlo
+    }
+
+    private static Measurement measure(Gson gson, String json) {
+        Measurement measurement = new Measurement();
+        long allocatedBefore = allocatedBytes();
+
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            List<Song> songs = gson.fromJson(json, SONG_LIST_TYPE);
+            measurement.bestNanos = Math.min(measurement.bestNanos, System.nanoTime() - start);
+            assertEquals(SONG_COUNT, songs.size());
+        }
+
+        long allocatedAfter = allocatedBytes();
+        if (allocatedBefore >= 0 && allocatedAfter >= 0) {
+            measurement.allocatedBytes = (allocatedAfter - allocatedBefore) / MEASURED_ROUNDS;
+        }
+        return measurement;
+    }
+
+    // Bytes asignados por el hilo actual (extensión de HotSpot); -1 si no está disponible
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return -1;
+        com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) bean;
+        if (!hotspot.isThreadAllocatedMemorySupported()) return -1;
+        return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
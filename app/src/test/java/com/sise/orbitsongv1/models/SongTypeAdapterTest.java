@@ -0,0 +1,75 @@
+package com.sise.orbitsongv1.models;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.sise.orbitsongv1.services.GsonProvider;
+
+import org.junit.Test;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Los TypeAdapters escritos a mano leen lo mismo que el Gson por reflexión y sobreviven
+ * a un ida y vuelta. La comparativa de rendimiento está en {@link SongTypeAdapterBenchmarkTest}.
+ */
+public class SongTypeAdapterTest {
+
+    private static final int SONG_COUNT = 1_000;
+    static final Type SONG_LIST_TYPE = new TypeToken<List<Song>>() {}.getType();
+
+    @Test
+    public void handWrittenAdapter_readsSameSongsAsReflection() {
+        String json = buildCatalog(SONG_COUNT);
+
+        List<Song> reflective = new Gson().fromJson(json, SONG_LIST_TYPE);
+        List<Song> handWritten = GsonProvider.getGson().fromJson(json, SONG_LIST_TYPE);
+
+        assertEquals(SONG_COUNT, reflective.size());
+        assertEquals(reflective.size(), handWritten.size());
+        for (int i = 0; i < reflective.size(); i++) {
+            assertEquals(reflective.get(i).getId(), handWritten.get(i).getId());
+            assertEquals(reflective.get(i).getSpotifyId(), handWritten.get(i).getSpotifyId());
+            assertTrue("Canción distinta en la posición " + i,
+                    reflective.get(i).hasSameContent(handWritten.get(i)));
+        }
+    }
+
+    @Test
+    public void handWrittenAdapter_roundTripsCatalog() {
+        Gson gson = GsonProvider.getGson();
+        List<Song> songs = gson.fromJson(buildCatalog(100), SONG_LIST_TYPE);
+
+        List<Song> again = gson.fromJson(gson.toJson(songs, SONG_LIST_TYPE), SONG_LIST_TYPE);
+
+        assertEquals(songs.size(), again.size());
+        for (int i = 0; i < songs.size(); i++) {
+            assertTrue(songs.get(i).hasSameContent(again.get(i)));
+        }
+    }
+
+    // ========================================
+    // UTILIDADES
+    // ========================================
+
+    static String buildCatalog(int count) {
+        StringBuilder json = new StringBuilder(count * 320).append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"id\":\"").append(i)
+                    .append("\",\"nombre\":\"Canción ").append(i)
+                    .append("\",\"artistas\":[\"Artista ").append(i % 500)
+                    .append("\",\"Invitado ").append(i % 37)
+                    .append("\"],\"album\":\"Álbum ").append(i % 800)
+                    .append("\",\"duracion\":").append(120_000 + i)
+                    .append(",\"imagenUrl\":\"https://i.scdn.co/image/").append(i)
+                    .append("\",\"previewUrl\":").append(i % 3 == 0 ? "null" : "\"https://p.scdn.co/mp3-preview/" + i + "\"")
+                    .append(",\"popularidad\":").append(i % 100)
+                    .append(",\"spotifyId\":\"sp").append(i)
+                    .append("\"}");
+        }
+        return json.append(']').toString();
+    }
+}
@@ -0,0 +1,148 @@
+package com.sise.orbitsongv1.utils;
+
+import com.sise.orbitsongv1.models.Song;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del filtrado local incremental (SongFilterEngine sobre SongSearchIndex).
+ */
+public class SongFilterEngineTest {
+
+    private SongSearchIndex index;
+    private SongFilterEngine engine;
+
+    @Before
+    public void setUp() {
+        index = new SongSearchIndex();
+        index.rebuild(Arrays.asList(
+                song("1", "Tití Me Preguntó", "Bad Bunny", "Un Verano Sin Ti", 95.0),
+                song("2", "Badlands", "Halsey", "Badlands", 60.0),
+                song("3", "Bad Guy", "Billie Eilish", "When We All Fall Asleep", 90.0),
+                song("4", "Blinding Lights", "The Weeknd", "After Hours", 98.0),
+                song("5", "Moscow Mule", "Bad Bunny", "Un Verano Sin Ti", 85.0)
+        ));
+        engine = new SongFilterEngine(index);
+    }
+
+    @Test
+    public void extendingQuery_reusesPreviousResults() {
+        List<Song> bad = engine.filter("bad");
+        assertFalse(engine.isLastQueryNarrowed());
+        assertEquals(Arrays.asList("3", "2", "1", "5"), ids(bad));
+
+        List<Song> badB = engine.filter("bad b");
+        assertTrue(engine.isLastQueryNarrowed());
+        assertEquals(Arrays.asList("1", "5"), ids(badB));
+
+        List<Song> badbu = engine.filter("Bad Bu");
+        assertTrue(engine.isLastQueryNarrowed());
+        assertEquals(Arrays.asList("1", "5"), ids(badbu));
+    }
+
+    @Test
+    public void narrowedResults_matchFullSearch() {
+        engine.filter("b");
+        engine.filter("ba");
+        List<Song> narrowed = engine.filter("bad g");
+
+        assertTrue(engine.isLastQueryNarrowed());
+        assertEquals(ids(index.search("bad g")), ids(narrowed));
+        assertEquals(Arrays.asList("3"), ids(narrowed));
+    }
+
+    @Test
+    public void shrinkingOrChangingQuery_searchesIndexAgain() {
+        engine.filter("bad b");
+        List<Song> shorter = engine.filter("bad");
+        assertFalse(engine.isLastQueryNarrowed());
+        assertEquals(4, shorter.size());
+
+        List<Song> other = engine.filter("lights");
+        assertFalse(engine.isLastQueryNarrowed());
+        assertEquals(Arrays.asList("4"), ids(other));
+    }
+
+    @Test
+    public void indexChange_invalidatesPreviousResults() {
+        engine.filter("bad");
+        index.add(song("6", "Bad Romance", "Lady Gaga", "The Fame Monster", 80.0));
+
+        List<Song> result = engine.filter("bad r");
+        assertFalse(engine.isLastQueryNarrowed());
+        assertEquals(Arrays.asList("6"), ids(result));
+    }
+
+    @Test
+    public void sync_keepsSongsWithoutId() {
+        Song withoutId = song(null, "Bad Habits", "Ed Sheeran", "=", 88.0);
+        index.sync(Arrays.asList(
+                song("3", "Bad Guy", "Billie Eilish", "When We All Fall Asleep", 90.0),
+                withoutId
+        ));
+
+        assertEquals(2, index.size());
+        assertTrue(index.search("habits").contains(withoutId));
+
+        index.sync(Arrays.asList(withoutId));
+        assertEquals(1, index.size());
+        assertTrue(index.search("habits").contains(withoutId));
+    }
+
+    @Test
+    public void sync_replacesSongWhenOnlyPreviewChanges() {
+        Song withPreview = new Song("4", "Blinding Lights", new ArrayList<>(Arrays.asList("The Weeknd")),
+                "After Hours", 180000, null, "https://p.scdn.co/mp3-preview/4", 98.0, null);
+        engine.filter("light");
+        index.sync(Arrays.asList(
+                song("1", "Tití Me Preguntó", "Bad Bunny", "Un Verano Sin Ti", 95.0),
+                song("2", "Badlands", "Halsey", "Badlands", 60.0),
+                song("3", "Bad Guy", "Billie Eilish", "When We All Fall Asleep", 90.0),
+                withPreview,
+                song("5", "Moscow Mule", "Bad Bunny", "Un Verano Sin Ti", 85.0)
+        ));
+
+        assertEquals(5, index.size());
+        assertSame(withPreview, engine.filter("light").get(0));
+        assertSame(withPreview, index.search("blinding").get(0));
+    }
+
+    @Test
+    public void ranking_prefersNamePrefixThenPopularity() {
+        List<Song> result = engine.filter("bad");
+
+        // Nombre que empieza por "bad" (Bad Guy 90 > Badlands 60) antes que artista (Bad Bunny)
+        assertEquals("3", result.get(0).getId());
+        assertEquals("2", result.get(1).getId());
+        assertEquals("1", result.get(2).getId());
+    }
+
+    @Test
+    public void emptyQuery_resetsEngine() {
+        engine.filter("bad");
+        assertTrue(engine.filter("  ").isEmpty());
+
+        engine.filter("bad b");
+        assertFalse(engine.isLastQueryNarrowed());
+    }
+
+    private static Song song(String id, String nombre, String artista, String album, double popularidad) {
+        return new Song(id, nombre, new ArrayList<>(Arrays.asList(artista)), album,
+                180000, null, null, popularidad, null);
+    }
+
+    private static List<String> ids(List<Song> songs) {
+        List<String> ids = new ArrayList<>();
+        for (Song song : songs) {
+            ids.add(song.getId());
+        }
+        return ids;
+    }
+}